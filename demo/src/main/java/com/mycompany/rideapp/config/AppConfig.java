@@ -14,7 +14,7 @@ import lombok.Data;
 @EnableAsync
 @Configuration
 @ConfigurationProperties(prefix = "app")
-@EnableConfigurationProperties(StorageProperties.class)
+@EnableConfigurationProperties({ StorageProperties.class, DispatchProperties.class, RideArchiveProperties.class })
 public class AppConfig {
     private List<String> authorizedRedirectUris = new ArrayList<>();
 
@@ -0,0 +1,147 @@
+package com.mycompany.rideapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.mycompany.rideapp.enums.DispatchMode;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "app.dispatch")
+public class DispatchProperties {
+    // local | redis
+    private String locationStore = "local";
+
+    // local | redis
+    private String pendingStore = "local";
+
+    // local | redis (replicates active ride snapshots to every node)
+    private String activeRides = "local";
+
+    private DispatchMode mode = DispatchMode.SEQUENTIAL;
+
+    private Index index = new Index();
+    private Position position = new Position();
+    private Scheduler scheduler = new Scheduler();
+    private Batch batch = new Batch();
+    private Broadcast broadcast = new Broadcast();
+    private CustomerCache customerCache = new CustomerCache();
+    private Presence presence = new Presence();
+    private Offer offer = new Offer();
+    private Broker broker = new Broker();
+    private Viewport viewport = new Viewport();
+
+    @Data
+    public static class Index {
+        // ~1.1 km per cell at the equator
+        private double cellSizeDegrees = 0.01;
+
+        // Ring search radius; when nobody is inside it the search covers every driver
+        private double maxSearchRadiusKm = 20;
+    }
+
+    @Data
+    public static class Position {
+        private long flushIntervalMs = 2000;
+
+        private int batchSize = 500;
+
+        // Echo positions as binary frames; only clients on the raw /ws-raw endpoint can read them
+        private boolean binaryEcho = false;
+    }
+
+    @Data
+    public static class Scheduler {
+        private long tickMs = 1000;
+
+        private int wheelSize = 512;
+
+        private long retryIntervalMs = 10000;
+
+        private int maxRetries = 120;
+
+        // How long a node owns a ride's retry tick
+        private long leaseMs = 5000;
+
+        // Rides overdue by more than this are taken over by another node
+        private long orphanGraceMs = 5000;
+
+        private long sweepIntervalMs = 5000;
+
+        // Single-threaded lanes pending rides are striped over, 0 means one per core
+        private int lanes = 0;
+    }
+
+    @Data
+    public static class Batch {
+        private long windowMs = 2000;
+
+        private int maxBatchSize = 200;
+
+        private int candidatesPerRide = 10;
+    }
+
+    @Data
+    public static class Broadcast {
+        // Drivers offered the same ride at once
+        private int fanOut = 3;
+    }
+
+    @Data
+    public static class CustomerCache {
+        private int maxSize = 10000;
+
+        private long ttlMs = 300000;
+    }
+
+    @Data
+    public static class Presence {
+        // Drivers silent for longer are offline and leave the location store
+        private long timeoutMs = 30000;
+
+        private long sweepIntervalMs = 5000;
+
+        // Only offer rides to drivers subscribed to their topic on this node
+        private boolean requireSubscription = true;
+    }
+
+    @Data
+    public static class Offer {
+        // Without it, drivers whose client never sent an ACK only get the decision timeout
+        private boolean ackRequired = false;
+
+        private long deliveryTimeoutMs = 2000;
+
+        private long decisionTimeoutMs = 12000;
+
+        private long tickMs = 250;
+    }
+
+    @Data
+    public static class Broker {
+        // simple (in-memory, one node) | relay (external STOMP broker) | redis (pub/sub bridge)
+        private String mode = "simple";
+
+        private String relayHost = "localhost";
+
+        private int relayPort = 61613;
+
+        private String relayLogin = "guest";
+
+        private String relayPasscode = "guest";
+    }
+
+    @Data
+    public static class Viewport {
+        // Cells of the viewport subscription grid, coarser than the driver index
+        private double cellSizeDegrees = 0.05;
+
+        // Zoomed further out, the map keeps polling /driver/nearby instead
+        private double minZoom = 10;
+
+        private int maxCells = 2500;
+
+        // Drivers in the first snapshot of a viewport
+        private int snapshotLimit = 500;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mycompany.rideapp.config;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import com.mycompany.rideapp.dto.DriverPosition;
+
+/**
+ * Opt-in binary form of {@link DriverPosition} for STOMP frames sent with
+ * {@code content-type:application/vnd.rideapp.position}. Messages without that
+ * content type are left to the JSON converter. The frame is fixed-layout
+ * little-endian:
+ *
+ * <pre>
+ * version  u8   (1)
+ * lat      f64
+ * lng      f64
+ * heading  f32  NaN when unknown
+ * speed    f32  NaN when unknown
+ * time     i64  epoch millis, Long.MIN_VALUE when unknown
+ * idLength u8
+ * driverId UTF-8
+ * </pre>
+ *
+ * Decoding reuses one {@link DriverPosition} per thread, so a payload is only
+ * valid until its handler returns.
+ */
+public class DriverPositionMessageConverter extends AbstractMessageConverter {
+    public static final MimeType POSITION_FRAME = new MimeType("application", "vnd.rideapp.position");
+
+    private static final byte VERSION = 1;
+    private static final int FIXED_BYTES = 1 + 8 + 8 + 4 + 4 + 8 + 1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // One instance per inbound channel thread, refilled for every frame. Handlers
+    // run on that thread and must not keep the payload once they return.
+    private final ThreadLocal<DriverPosition> decoded = ThreadLocal.withInitial(DriverPosition::new);
+
+    public DriverPositionMessageConverter() {
+        super(POSITION_FRAME);
+        setStrictContentTypeMatch(true);
+        setSerializedPayloadClass(byte[].class);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return DriverPosition.class == clazz;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] frame)) {
+            return null;
+        }
+        return decode(frame, decoded.get());
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return encode((DriverPosition) payload);
+    }
+
+    public static byte[] encode(DriverPosition position) {
+        byte[] driverId = position.getDriverId() != null
+                ? position.getDriverId().getBytes(StandardCharsets.UTF_8)
+                : new byte[0];
+        if (driverId.length > 255) {
+            throw new MessageConversionException("Driver id too long for a position frame");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_BYTES + driverId.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(VERSION);
+        buffer.putDouble(orNaN(position.getLat()));
+        buffer.putDouble(orNaN(position.getLng()));
+        buffer.putFloat((float) orNaN(position.getHeading()));
+        buffer.putFloat((float) orNaN(position.getSpeed()));
+        buffer.putLong(position.getTimestamp() != null ? position.getTimestamp().toEpochMilli() : NO_TIME);
+        buffer.put((byte) driverId.length);
+        buffer.put(driverId);
+        return buffer.array();
+    }
+
+    /**
+     * Reads a frame into {@code into}, overwriting every field, so a caller can
+     * keep reusing the same instance.
+     */
+    public static DriverPosition decode(byte[] frame, DriverPosition into) {
+        if (frame.length < FIXED_BYTES || frame[0] != VERSION) {
+            throw new MessageConversionException("Not a version " + VERSION + " position frame");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(1);
+        into.setLat(orNull(buffer.getDouble()));
+        into.setLng(orNull(buffer.getDouble()));
+        into.setHeading(orNull(buffer.getFloat()));
+        into.setSpeed(orNull(buffer.getFloat()));
+        long time = buffer.getLong();
+        into.setTimestamp(time != NO_TIME ? Instant.ofEpochMilli(time) : null);
+        int idLength = buffer.get() & 0xFF;
+        if (buffer.remaining() != idLength) {
+            throw new MessageConversionException("Truncated position frame");
+        }
+        into.setDriverId(idLength > 0 ? new String(frame, FIXED_BYTES, idLength, StandardCharsets.UTF_8) : null);
+        return into;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
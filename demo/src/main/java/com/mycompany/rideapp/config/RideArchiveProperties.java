@@ -0,0 +1,20 @@
+package com.mycompany.rideapp.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "app.ride-archive")
+public class RideArchiveProperties {
+    private boolean enabled = true;
+
+    // FINISHED/CANCELLED rides older than this move to the archive table
+    private int retentionDays = 30;
+
+    private int batchSize = 500;
+
+    private int maxBatchesPerRun = 20;
+
+    private long intervalMs = 60000;
+}
@@ -201,7 +201,9 @@ public class SecurityConfig {
 
                                 "Authorization",
 
-                                "Content-Disposition"
+                                "Content-Disposition",
+
+                                "X-Next-Cursor"
 
                 ));
 
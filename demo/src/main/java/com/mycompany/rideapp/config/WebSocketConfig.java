@@ -1,22 +1,54 @@
 package com.mycompany.rideapp.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import com.mycompany.rideapp.service.RedisBrokerBridge;
+
+import lombok.RequiredArgsConstructor;
+
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private final DispatchProperties dispatchProperties;
+    private final ObjectProvider<RedisBrokerBridge> redisBrokerBridge;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        DispatchProperties.Broker broker = dispatchProperties.getBroker();
+        if ("relay".equals(broker.getMode())) {
+            // Every node relays to the same external broker (RabbitMQ/ActiveMQ STOMP plugin)
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(broker.getRelayHost())
+                    .setRelayPort(broker.getRelayPort())
+                    .setClientLogin(broker.getRelayLogin())
+                    .setClientPasscode(broker.getRelayPasscode())
+                    .setSystemLogin(broker.getRelayLogin())
+                    .setSystemPasscode(broker.getRelayPasscode());
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+            // In redis mode the local broker also receives what the other nodes send
+            redisBrokerBridge.ifAvailable(bridge -> config.configureBrokerChannel().interceptors(bridge));
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Only claims frames sent as application/vnd.rideapp.position, JSON stays the default
+        messageConverters.add(new DriverPositionMessageConverter());
+        return true;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
@@ -2,6 +2,7 @@ package com.mycompany.rideapp.controller;
 
 import java.util.List;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,10 +14,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.mycompany.rideapp.dto.request.RideRequest;
 import com.mycompany.rideapp.dto.request.UpdateRideStatusRequest;
+import com.mycompany.rideapp.dto.response.RideHistoryPageResponse;
 import com.mycompany.rideapp.dto.response.RideResponse;
+import com.mycompany.rideapp.repository.RideRepositoryCustom.HistoryScope;
 import com.mycompany.rideapp.service.RideService;
 
 import lombok.RequiredArgsConstructor;
@@ -30,6 +34,9 @@ import jakarta.validation.Valid;
 @Slf4j
 public class RideController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final RideService rideService;
 
     @PostMapping
@@ -45,9 +52,15 @@ public class RideController {
     }
 
     @GetMapping
-    public ResponseEntity<List<RideResponse>> getAllRides() {
-        List<RideResponse> responses = rideService.getAllRides();
-        return ResponseEntity.ok(responses);
+    public ResponseEntity<List<RideResponse>> getAllRides(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return historyPage(HistoryScope.ALL, null, cursor, limit);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportAllRides() {
+        return export(HistoryScope.ALL, null);
     }
 
     @PutMapping("/{id}")
@@ -57,25 +70,46 @@ public class RideController {
     }
 
     @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<RideResponse>> getRidesByDriver(@PathVariable String driverId) {
-        return ResponseEntity.ok(rideService.getRidesByDriverId(driverId));
+    public ResponseEntity<List<RideResponse>> getRidesByDriver(@PathVariable String driverId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return historyPage(HistoryScope.DRIVER, driverId, cursor, limit);
+    }
+
+    @GetMapping(value = "/driver/{driverId}/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRidesByDriver(@PathVariable String driverId) {
+        return export(HistoryScope.DRIVER, driverId);
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<RideResponse>> getRidesByCustomer(@PathVariable String customerId) {
-        return ResponseEntity.ok(rideService.getRidesByCustomerId(customerId));
+    public ResponseEntity<List<RideResponse>> getRidesByCustomer(@PathVariable String customerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return historyPage(HistoryScope.CUSTOMER, customerId, cursor, limit);
+    }
+
+    @GetMapping(value = "/customer/{customerId}/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRidesByCustomer(@PathVariable String customerId) {
+        return export(HistoryScope.CUSTOMER, customerId);
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<RideResponse>> getRidesByUser(@PathVariable String userId) {
-        return ResponseEntity.ok(rideService.getRidesByUserId(userId));
+    public ResponseEntity<List<RideResponse>> getRidesByUser(@PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return historyPage(HistoryScope.USER, userId, cursor, limit);
+    }
+
+    @GetMapping(value = "/user/{userId}/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportRidesByUser(@PathVariable String userId) {
+        return export(HistoryScope.USER, userId);
     }
 
     @PatchMapping("/{rideId}/status")
     public ResponseEntity<RideResponse> updateRideStatus(
             @PathVariable String rideId,
             @Valid @RequestBody UpdateRideStatusRequest request) {
-        RideResponse response = rideService.updateRideStatus(rideId, request.getStatus());
+        RideResponse response = rideService.updateRideStatus(rideId, request.getStatus(), request.getVersion());
         return ResponseEntity.ok(response);
     }
 
@@ -142,4 +176,20 @@ public class RideController {
         }
         return ResponseEntity.ok(activeRide);
     }
-}
\ No newline at end of file
+
+    // History lists stay plain arrays; the cursor of the next page travels in a header
+    private ResponseEntity<List<RideResponse>> historyPage(HistoryScope scope, String participantId, String cursor,
+            Integer limit) {
+        RideHistoryPageResponse page = rideService.getRideHistory(scope, participantId, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getRides());
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(HistoryScope scope, String participantId) {
+        StreamingResponseBody body = out -> rideService.exportRideHistory(scope, participantId, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
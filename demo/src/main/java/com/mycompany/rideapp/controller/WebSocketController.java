@@ -2,15 +2,20 @@ package com.mycompany.rideapp.controller;
 
 import java.security.Principal;
 
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
 
 import com.mycompany.rideapp.dto.DriverPosition;
 import com.mycompany.rideapp.dto.request.DriverResponseRequest;
+import com.mycompany.rideapp.dto.request.OfferAckRequest;
+import com.mycompany.rideapp.dto.request.ViewportRequest;
+import com.mycompany.rideapp.service.DriverPresenceTracker;
 import com.mycompany.rideapp.service.DriverService;
 import com.mycompany.rideapp.service.NotificationService;
 import com.mycompany.rideapp.service.RideService;
+import com.mycompany.rideapp.service.ViewportRegistry;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,17 +28,38 @@ public class WebSocketController {
     private final RideService rideService;
     private final DriverService driverService;
     private final NotificationService notificationService;
+    private final DriverPresenceTracker driverPresenceTracker;
+    private final ViewportRegistry viewportRegistry;
 
     @MessageMapping("/driver/response")
     public void handleDriverResponse(@Payload DriverResponseRequest request) {
         rideService.handleDriverResponse(request);
     }
 
+    @MessageMapping("/driver/offer-ack")
+    public void handleOfferAck(@Payload OfferAckRequest request) {
+        rideService.acknowledgeOffer(request);
+    }
+
+    @MessageMapping("/map/viewport")
+    public void registerViewport(@Payload ViewportRequest request,
+            @Header(name = "simpSessionId", required = false) String sessionId) {
+        viewportRegistry.register(sessionId, request);
+    }
+
+    @MessageMapping("/map/viewport/close")
+    public void closeViewport(@Payload ViewportRequest request) {
+        viewportRegistry.unregister(request.getViewportId());
+    }
+
     @MessageMapping("/driver/updatePos")
-    public void updateDriverPosition(@Payload DriverPosition driverPosition) {
+    public void updateDriverPosition(@Payload DriverPosition driverPosition,
+            @Header(name = "simpSessionId", required = false) String sessionId) {
         if (driverPosition == null){
             return;
         }
+        // Heartbeat first, so a driver that timed out is back online when re-indexed
+        driverPresenceTracker.heartbeat(driverPosition.getDriverId(), sessionId);
         // if(!isValidCoordinate(driverPosition.getLat(),driverPosition.getLng())){
         //     log.warn("Invalid coordinates received from user: {}", principal != null ? principal.getName() : "Unknown");
         //     return;
@@ -49,10 +75,7 @@ public class WebSocketController {
                 driverPosition.getLng());
 
 
-        notificationService.notifyDriverPositionUpdate(
-                driverPosition.getDriverId(),
-                driverPosition.getLat(),
-                driverPosition.getLng());
+        notificationService.notifyDriverPositionUpdate(driverPosition);
         
     }
     private boolean isValidCoordinate(Double lat, Double lng) {
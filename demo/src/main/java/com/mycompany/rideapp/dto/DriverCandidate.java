@@ -0,0 +1,48 @@
+package com.mycompany.rideapp.dto;
+
+import com.mycompany.rideapp.enums.AccountStatus;
+import com.mycompany.rideapp.enums.Role;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Read model of a search candidate: one ACTIVE driver together with one of
+ * their ACTIVE vehicles and their user, loaded by a single JPQL constructor
+ * expression (see DriverRepository#findCandidates). The constructor argument
+ * order is part of that query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DriverCandidate {
+    String driverId;
+    String licenseNumber;
+    AccountStatus driverStatus;
+    String address;
+    String avatarUrl;
+    Double rating;
+    Double latitude;
+    Double longitude;
+    Double prefferedLatitude;
+    Double prefferedLongitude;
+
+    String vehicleId;
+    String vehicleType;
+    String vehicleNumber;
+    String vehicleBrand;
+
+    String userId;
+    String name;
+    String userName;
+    String phoneNumber;
+    Role role;
+    String cccd;
+    String email;
+    String imageUrl;
+    String accountType;
+}
@@ -1,5 +1,7 @@
 package com.mycompany.rideapp.dto;
 
+import java.time.Instant;
+
 import lombok.Data;
 
 @Data
@@ -7,4 +9,9 @@ public class DriverPosition {
     String driverId;
     Double lat;
     Double lng;
+    // Optional, degrees clockwise from north
+    Double heading;
+    // Optional, meters per second
+    Double speed;
+    Instant timestamp;
 }
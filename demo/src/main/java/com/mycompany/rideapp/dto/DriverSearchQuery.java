@@ -0,0 +1,22 @@
+package com.mycompany.rideapp.dto;
+
+import com.mycompany.rideapp.enums.VehicleType;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DriverSearchQuery {
+    Double latitude;
+    Double longitude;
+    int limit;
+    VehicleType vehicleType;
+}
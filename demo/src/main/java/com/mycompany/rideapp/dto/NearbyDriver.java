@@ -0,0 +1,20 @@
+package com.mycompany.rideapp.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class NearbyDriver {
+    String driverId;
+    double latitude;
+    double longitude;
+    double distanceMeters;
+}
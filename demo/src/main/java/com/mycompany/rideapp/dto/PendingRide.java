@@ -1,9 +1,9 @@
 package com.mycompany.rideapp.dto;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.mycompany.rideapp.dto.request.RideRequest;
@@ -23,12 +23,19 @@ import lombok.experimental.FieldDefaults;
 public class PendingRide {
     String rideRequestId;
     RideRequest request;
+    // Resolved once when the ride is created, offers never look it up again
+    String customerName;
     List<String> driverIds;
     int currentDriverIndex;
+    int retryCount;
     @Builder.Default
     AtomicBoolean accepted = new AtomicBoolean(false);
     Long timestamp;
     
     @Builder.Default
-    Set<String> rejectedDriverIds = new HashSet<>();
+    Set<String> rejectedDriverIds = ConcurrentHashMap.newKeySet();
+
+    // Broadcast mode: drivers currently holding an offer for this ride
+    @Builder.Default
+    Set<String> offeredDriverIds = ConcurrentHashMap.newKeySet();
 }
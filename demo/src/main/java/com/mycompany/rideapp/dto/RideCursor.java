@@ -0,0 +1,55 @@
+package com.mycompany.rideapp.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Base64;
+
+import com.mycompany.rideapp.exception.BadRequest;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Position in the ride history, which is ordered by rideDate then id, both
+ * descending. Rides without a ride date come last. Sent to clients as an
+ * opaque URL-safe token.
+ */
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class RideCursor {
+    Date rideDate;
+    String id;
+
+    public static RideCursor after(RideListing ride) {
+        return new RideCursor(ride.getRideDate(), ride.getId());
+    }
+
+    public String encode() {
+        String raw = (rideDate != null ? rideDate.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null for a null or blank token
+     */
+    public static RideCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String date = raw.substring(0, separator);
+            String id = raw.substring(separator + 1);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Missing id");
+            }
+            return new RideCursor(date.isEmpty() ? null : Date.valueOf(date), id);
+        } catch (RuntimeException e) {
+            throw new BadRequest("Invalid cursor: " + token, e);
+        }
+    }
+}
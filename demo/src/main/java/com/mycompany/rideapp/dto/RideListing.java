@@ -0,0 +1,77 @@
+package com.mycompany.rideapp.dto;
+
+import java.sql.Date;
+
+import com.mycompany.rideapp.enums.AccountStatus;
+import com.mycompany.rideapp.enums.Role;
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Read model of one ride history row: the ride, its driver with the driver's
+ * user and first ACTIVE vehicle, and its customer, loaded by a single JPQL
+ * constructor expression (see RideRepositoryImpl). The constructor argument
+ * order is part of that query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RideListing {
+    String id;
+    Long startTime;
+    Long endTime;
+    Double startLatitude;
+    Double startLongitude;
+    Double endLatitude;
+    Double endLongitude;
+    Long distance;
+    Long fare;
+    Status status;
+    VehicleType vehicleType;
+    String startAddress;
+    String endAddress;
+    Date rideDate;
+
+    String driverId;
+    String licenseNumber;
+    AccountStatus driverStatus;
+    String address;
+    String avatarUrl;
+    Double rating;
+    Double latitude;
+    Double longitude;
+    Double prefferedLatitude;
+    Double prefferedLongitude;
+
+    String vehicleId;
+    String driverVehicleType;
+    String vehicleNumber;
+    String vehicleBrand;
+
+    String driverUserId;
+    String driverName;
+    String driverUserName;
+    String driverPhoneNumber;
+    Role driverRole;
+    String driverCccd;
+    String driverEmail;
+    String driverImageUrl;
+    String driverAccountType;
+
+    String customerId;
+    String customerName;
+    String customerUserName;
+    String customerPhoneNumber;
+    Role customerRole;
+    String customerCccd;
+    String customerEmail;
+    String customerImageUrl;
+    String customerAccountType;
+}
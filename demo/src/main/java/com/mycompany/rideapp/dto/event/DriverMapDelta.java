@@ -0,0 +1,22 @@
+package com.mycompany.rideapp.dto.event;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mycompany.rideapp.enums.MapChange;
+
+/**
+ * Drivers that entered, moved inside or left a registered map viewport.
+ */
+public record DriverMapDelta(String viewportId, List<Change> changes) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "DRIVER_MAP_DELTA";
+    }
+
+    // LEAVE carries no position
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Change(MapChange change, String driverId, Double lat, Double lng) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.mycompany.rideapp.dto.event;
+
+public record DriverPositionUpdate(String driverId, Double lat, Double lng) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "DRIVER_POSITION_UPDATE";
+    }
+}
@@ -0,0 +1,9 @@
+package com.mycompany.rideapp.dto.event;
+
+public record NoDriverAvailable(String rideRequestId, String message) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "NO_DRIVER_AVAILABLE";
+    }
+}
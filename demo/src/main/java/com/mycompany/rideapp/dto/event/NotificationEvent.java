@@ -0,0 +1,14 @@
+package com.mycompany.rideapp.dto.event;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Payload pushed to a customer or driver topic. The {@code type} field tells
+ * the client which event it got.
+ */
+public sealed interface NotificationEvent permits RideAccepted, RideStatusUpdate, DriverPositionUpdate,
+        RideCancelled, RideCreated, RideRequestCancelled, NoDriverAvailable, DriverMapDelta {
+
+    @JsonProperty("type")
+    String type();
+}
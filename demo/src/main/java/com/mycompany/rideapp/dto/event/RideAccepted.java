@@ -0,0 +1,19 @@
+package com.mycompany.rideapp.dto.event;
+
+public record RideAccepted(
+        String driverId,
+        String rideId,
+        Double driverLat,
+        Double driverLng,
+        String driverName,
+        String driverAvatar,
+        Double driverRating,
+        String driverPhone,
+        String vehicleModel,
+        String vehiclePlate) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "RIDE_ACCEPTED";
+    }
+}
@@ -0,0 +1,10 @@
+package com.mycompany.rideapp.dto.event;
+
+public record RideCancelled(String rideId, String cancelledBy, String message, long timestamp)
+        implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "RIDE_CANCELLED";
+    }
+}
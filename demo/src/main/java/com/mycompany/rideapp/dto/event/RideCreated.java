@@ -0,0 +1,9 @@
+package com.mycompany.rideapp.dto.event;
+
+public record RideCreated(String rideId, String customerId, long timestamp) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "RIDE_CREATED";
+    }
+}
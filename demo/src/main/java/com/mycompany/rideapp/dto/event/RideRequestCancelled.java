@@ -0,0 +1,13 @@
+package com.mycompany.rideapp.dto.event;
+
+import com.mycompany.rideapp.enums.RideRequestCancelReason;
+
+public record RideRequestCancelled(String rideRequestId, RideRequestCancelReason reason, String message,
+        long timestamp)
+        implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "RIDE_REQUEST_CANCELLED";
+    }
+}
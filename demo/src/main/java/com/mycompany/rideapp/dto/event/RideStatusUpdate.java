@@ -0,0 +1,19 @@
+package com.mycompany.rideapp.dto.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Driver fields are left out when the ride has no driver
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RideStatusUpdate(
+        String rideId,
+        String status,
+        long timestamp,
+        String driverId,
+        Double driverLat,
+        Double driverLng) implements NotificationEvent {
+
+    @Override
+    public String type() {
+        return "RIDE_STATUS_UPDATE";
+    }
+}
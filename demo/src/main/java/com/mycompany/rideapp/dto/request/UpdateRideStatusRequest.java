@@ -18,4 +18,6 @@ import lombok.experimental.FieldDefaults;
 public class UpdateRideStatusRequest {
     @NotNull(message = "STATUS_NOT_NULL")
     Status status;
+    // Optional; when set the update only applies if the ride is still at this version
+    Long version;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.mycompany.rideapp.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ViewportRequest {
+    // Chosen by the client, deltas go to /topic/map/{viewportId}
+    @NotNull(message = "VIEWPORT_ID_NOT_NULL")
+    String viewportId;
+
+    Double minLat;
+    Double maxLat;
+    Double minLng;
+    Double maxLng;
+    Double zoom;
+}
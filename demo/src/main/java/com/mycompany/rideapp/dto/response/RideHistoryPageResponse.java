@@ -0,0 +1,21 @@
+package com.mycompany.rideapp.dto.response;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RideHistoryPageResponse {
+    List<RideResponse> rides;
+    // Null on the last page
+    String nextCursor;
+}
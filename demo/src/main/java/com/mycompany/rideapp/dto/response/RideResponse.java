@@ -11,7 +11,7 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
@@ -36,6 +36,7 @@ public class RideResponse {
     String rideDate;
     String startLocation;
     String endLocation;
+    Long version;
 
     // List<ReviewResponse> reviews;
     // List<PaymentResponse> payments;
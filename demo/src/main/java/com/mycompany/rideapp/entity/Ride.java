@@ -8,13 +8,17 @@ import org.hibernate.annotations.Nationalized;
 import com.mycompany.rideapp.enums.Status;
 import com.mycompany.rideapp.enums.VehicleType;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -28,6 +32,12 @@ import lombok.experimental.FieldDefaults;
 @AllArgsConstructor
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
+// Keyset pagination of the ride history seeks on (participant, rideDate, id)
+@Table(indexes = {
+        @Index(name = "IX_Ride_driver_history", columnList = "driver_id, rideDate, id"),
+        @Index(name = "IX_Ride_customer_history", columnList = "customer_id, rideDate, id"),
+        @Index(name = "IX_Ride_history", columnList = "rideDate, id")
+})
 public class Ride {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -60,6 +70,11 @@ public class Ride {
 
     Date rideDate;
 
+    // Bumped by every write, including RideRepository#transition
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    Long version;
+
     @OneToMany(mappedBy = "ride")
     List<Review> reviews;
 
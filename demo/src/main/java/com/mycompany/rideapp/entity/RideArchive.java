@@ -0,0 +1,100 @@
+package com.mycompany.rideapp.entity;
+
+import java.sql.Date;
+
+import org.hibernate.annotations.Nationalized;
+
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * FINISHED/CANCELLED rides moved out of the hot Ride table by RideArchiver.
+ * Same columns as {@link Ride}, plus {@code archiveMonth} (yyyyMM of the ride
+ * date), which is the partitioning key of the table.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Table(name = "RideArchive", indexes = {
+        @Index(name = "IX_RideArchive_month", columnList = "archiveMonth"),
+        @Index(name = "IX_RideArchive_customer", columnList = "customer_id, rideDate, id"),
+        @Index(name = "IX_RideArchive_driver", columnList = "driver_id, rideDate, id"),
+        @Index(name = "IX_RideArchive_history", columnList = "rideDate, id")
+})
+public class RideArchive {
+    // Keeps the id the ride had in the hot table
+    @Id
+    String id;
+
+    Integer archiveMonth;
+
+    @ManyToOne
+    @JoinColumn(name = "driver_id")
+    Driver driver;
+
+    @ManyToOne
+    @JoinColumn(name = "customer_id")
+    User customer;
+
+    Long startTime;
+    Long endTime;
+    Double startLatitude;
+    Double startLongitude;
+    Double endLatitude;
+    Double endLongitude;
+    Long distance;
+    Long fare;
+    Status status;
+    VehicleType vehicleType;
+
+    @Nationalized
+    String startAddress;
+
+    @Nationalized
+    String endAddress;
+
+    Date rideDate;
+
+    Long archivedAt;
+
+    /**
+     * Detached, read-only {@link Ride} view, so archived rides render through
+     * the same mapper.
+     */
+    public Ride toRide() {
+        return Ride.builder()
+                .id(id)
+                .driver(driver)
+                .customer(customer)
+                .startTime(startTime)
+                .endTime(endTime)
+                .startLatitude(startLatitude)
+                .startLongitude(startLongitude)
+                .endLatitude(endLatitude)
+                .endLongitude(endLongitude)
+                .distance(distance)
+                .fare(fare)
+                .status(status)
+                .vehicleType(vehicleType)
+                .startAddress(startAddress)
+                .endAddress(endAddress)
+                .rideDate(rideDate)
+                .build();
+    }
+}
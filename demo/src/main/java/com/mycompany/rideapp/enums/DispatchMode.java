@@ -0,0 +1,7 @@
+package com.mycompany.rideapp.enums;
+
+public enum DispatchMode {
+    SEQUENTIAL,
+    BATCH,
+    BROADCAST
+}
@@ -0,0 +1,7 @@
+package com.mycompany.rideapp.enums;
+
+public enum MapChange {
+    ENTER,
+    MOVE,
+    LEAVE
+}
@@ -0,0 +1,17 @@
+package com.mycompany.rideapp.enums;
+
+/**
+ * Why a driver's ride request offer was withdrawn.
+ */
+public enum RideRequestCancelReason {
+    // The customer cancelled the request
+    CANCELLED,
+    // The driver did not answer in time
+    EXPIRED,
+    // Another driver accepted first
+    TAKEN,
+    // The driver is on a trip and cannot take it
+    UNAVAILABLE,
+    // The request was no longer open when the driver answered
+    CLOSED
+}
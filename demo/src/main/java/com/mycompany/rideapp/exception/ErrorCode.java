@@ -48,7 +48,8 @@ public enum ErrorCode {
     NO_DRIVER_AVAILABLE(1052, "No driver available", HttpStatus.NOT_FOUND),
     REVIEW_ALREADY_EXISTS(1053, "Review already exists for this ride", HttpStatus.CONFLICT),
     REVIEW_NOT_FOUND(1054, "Review not found", HttpStatus.NOT_FOUND),
-    RIDE_NOT_FOUND(1055, "Ride not found", HttpStatus.NOT_FOUND);
+    RIDE_NOT_FOUND(1055, "Ride not found", HttpStatus.NOT_FOUND),
+    RIDE_STATUS_CONFLICT(1056, "Ride status changed or transition not allowed", HttpStatus.CONFLICT);
 
     private int code;
     private String message;
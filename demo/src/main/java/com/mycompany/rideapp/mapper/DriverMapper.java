@@ -1,14 +1,19 @@
 
 package com.mycompany.rideapp.mapper;
 
+import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
+import com.mycompany.rideapp.dto.DriverCandidate;
+import com.mycompany.rideapp.dto.RideListing;
 import com.mycompany.rideapp.dto.request.DriverRequest;
 import com.mycompany.rideapp.dto.response.DriverResponse;
+import com.mycompany.rideapp.dto.response.UserResponse;
 import com.mycompany.rideapp.entity.Driver;
 import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.service.DriverPositionBuffer;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class DriverMapper {
     @Autowired
     private final UserMapper userMapper;
+    private final DriverPositionBuffer driverPositionBuffer;
 
     public Driver toEntity(DriverRequest request, User user) {
         if (request == null)
@@ -55,7 +61,7 @@ public class DriverMapper {
             }
         }
 
-        return DriverResponse.builder()
+        return positioned(driver.getId(), driver.getLatitude(), driver.getLongitude())
                 .id(driver.getId())
                 .user(driver.getUser() != null ? userMapper.toResponse(driver.getUser()) : null)
                 .licenseNumber(driver.getLicenseNumber())
@@ -63,8 +69,6 @@ public class DriverMapper {
                 .address(driver.getAddress())
                 .avatarUrl(driver.getAvatarUrl())
                 .rating(driver.getRating())
-                .latitude(driver.getLatitude())
-                .longitude(driver.getLongitude())
                 .vehicleType(vehicleType)
                 .vehicleModel(vehicleModel)
                 .vehiclePlate(vehiclePlate)
@@ -78,6 +82,74 @@ public class DriverMapper {
                 .build();
     }
 
+    /**
+     * Search results are rendered from the candidate projection, without
+     * touching the entity graph. vehicleIds only holds the matched vehicle.
+     */
+    public DriverResponse toResponse(DriverCandidate candidate) {
+        if (candidate == null)
+            return null;
+
+        UserResponse user = userMapper.toResponse(candidate.getUserId(), candidate.getName(),
+                candidate.getUserName(), candidate.getPhoneNumber(), candidate.getRole(), candidate.getCccd(),
+                candidate.getEmail(), candidate.getImageUrl(), candidate.getAccountType());
+
+        return positioned(candidate.getDriverId(), candidate.getLatitude(), candidate.getLongitude())
+                .id(candidate.getDriverId())
+                .user(user)
+                .licenseNumber(candidate.getLicenseNumber())
+                .driverStatus(candidate.getDriverStatus())
+                .address(candidate.getAddress())
+                .avatarUrl(candidate.getAvatarUrl())
+                .rating(candidate.getRating())
+                .vehicleType(candidate.getVehicleType())
+                .vehicleModel(candidate.getVehicleBrand())
+                .vehiclePlate(candidate.getVehicleNumber())
+                .vehicleIds(List.of(candidate.getVehicleId()))
+                .prefferedLatitude(candidate.getPrefferedLatitude())
+                .prefferedLongitude(candidate.getPrefferedLongitude())
+                .build();
+    }
+
+    /**
+     * Driver of a ride history row, rendered from the listing projection.
+     * vehicleIds only holds the listed ACTIVE vehicle.
+     */
+    public DriverResponse toResponse(RideListing listing) {
+        if (listing == null || listing.getDriverId() == null)
+            return null;
+
+        UserResponse user = userMapper.toResponse(listing.getDriverUserId(), listing.getDriverName(),
+                listing.getDriverUserName(), listing.getDriverPhoneNumber(), listing.getDriverRole(),
+                listing.getDriverCccd(), listing.getDriverEmail(), listing.getDriverImageUrl(),
+                listing.getDriverAccountType());
+
+        return positioned(listing.getDriverId(), listing.getLatitude(), listing.getLongitude())
+                .id(listing.getDriverId())
+                .user(user)
+                .licenseNumber(listing.getLicenseNumber())
+                .driverStatus(listing.getDriverStatus())
+                .address(listing.getAddress())
+                .avatarUrl(listing.getAvatarUrl())
+                .rating(listing.getRating())
+                .vehicleType(listing.getDriverVehicleType())
+                .vehicleModel(listing.getVehicleBrand())
+                .vehiclePlate(listing.getVehicleNumber())
+                .vehicleIds(listing.getVehicleId() != null ? List.of(listing.getVehicleId()) : List.of())
+                .prefferedLatitude(listing.getPrefferedLatitude())
+                .prefferedLongitude(listing.getPrefferedLongitude())
+                .build();
+    }
+
+    // Positions are written behind, so the buffer may be ahead of the stored row
+    private DriverResponse.DriverResponseBuilder positioned(String driverId, Double latitude, Double longitude) {
+        DriverPositionBuffer.BufferedPosition buffered = driverPositionBuffer.get(driverId);
+        if (buffered != null) {
+            return DriverResponse.builder().latitude(buffered.getLatitude()).longitude(buffered.getLongitude());
+        }
+        return DriverResponse.builder().latitude(latitude).longitude(longitude);
+    }
+
     public static void updateEntity(Driver driver, DriverRequest request) {
         if (driver == null || request == null)
             return;
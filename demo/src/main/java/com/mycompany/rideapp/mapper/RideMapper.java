@@ -3,6 +3,7 @@ package com.mycompany.rideapp.mapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.mycompany.rideapp.dto.RideListing;
 import com.mycompany.rideapp.dto.request.RideRequest;
 import com.mycompany.rideapp.dto.response.RideResponse;
 import com.mycompany.rideapp.dto.response.UserResponse;
@@ -66,8 +67,8 @@ public class RideMapper {
         UserResponse customer = entity.getCustomer() != null ? userMapper.toResponse(entity.getCustomer()) : null;
 
         // Get driver's current location
-        Double driverLat = entity.getDriver() != null ? entity.getDriver().getLatitude() : null;
-        Double driverLng = entity.getDriver() != null ? entity.getDriver().getLongitude() : null;
+        Double driverLat = driver != null ? driver.getLatitude() : null;
+        Double driverLng = driver != null ? driver.getLongitude() : null;
 
         String rideDate = entity.getRideDate() != null ? entity.getRideDate().toString() : null;
 
@@ -90,6 +91,40 @@ public class RideMapper {
                 .rideDate(rideDate)
                 .startLocation(entity.getStartAddress())
                 .endLocation(entity.getEndAddress())
+                .version(entity.getVersion())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Ride history rows are rendered from the listing projection, without
+     * touching the entity graph.
+     */
+    public RideResponse toResponse(RideListing listing) {
+        com.mycompany.rideapp.dto.response.DriverResponse driver = driverMapper.toResponse(listing);
+        UserResponse customer = userMapper.toResponse(listing.getCustomerId(), listing.getCustomerName(),
+                listing.getCustomerUserName(), listing.getCustomerPhoneNumber(), listing.getCustomerRole(),
+                listing.getCustomerCccd(), listing.getCustomerEmail(), listing.getCustomerImageUrl(),
+                listing.getCustomerAccountType());
+
+        return RideResponse.builder()
+                .id(listing.getId())
+                .driver(driver)
+                .customer(customer)
+                .startTime(listing.getStartTime())
+                .endTime(listing.getEndTime())
+                .startLatitude(listing.getStartLatitude())
+                .startLongitude(listing.getStartLongitude())
+                .endLatitude(listing.getEndLatitude())
+                .endLongitude(listing.getEndLongitude())
+                .driverLat(driver != null ? driver.getLatitude() : null)
+                .driverLng(driver != null ? driver.getLongitude() : null)
+                .distance(listing.getDistance())
+                .fare(listing.getFare())
+                .status(listing.getStatus())
+                .vehicleType(listing.getVehicleType())
+                .rideDate(listing.getRideDate() != null ? listing.getRideDate().toString() : null)
+                .startLocation(listing.getStartAddress())
+                .endLocation(listing.getEndAddress())
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Component;
 import com.mycompany.rideapp.dto.request.UserRequest;
 import com.mycompany.rideapp.dto.response.UserResponse;
 import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.enums.Role;
 
 @Component
 
@@ -30,16 +31,29 @@ public class UserMapper {
     public UserResponse toResponse(User user) {
         if (user == null)
             return null;
+        return toResponse(user.getId(), user.getName(), user.getUserName(), user.getPhoneNumber(), user.getRole(),
+                user.getCccd(), user.getEmail(), user.getImageUrl(), user.getAccountType());
+    }
+
+    /**
+     * For the user columns of a projection, without loading the entity.
+     *
+     * @return null when the projection has no user
+     */
+    public UserResponse toResponse(String id, String name, String userName, String phoneNumber, Role role,
+            String cccd, String email, String imageUrl, String accountType) {
+        if (id == null)
+            return null;
         return UserResponse.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .userName(user.getUserName())
-                .phoneNumber(user.getPhoneNumber())
-                .role(user.getRole())
-                .cccd(user.getCccd())
-                .email(user.getEmail())
-                .imageUrl(user.getImageUrl())
-                .accountType(user.getAccountType())
+                .id(id)
+                .name(name)
+                .userName(userName)
+                .phoneNumber(phoneNumber)
+                .role(role)
+                .cccd(cccd)
+                .email(email)
+                .imageUrl(imageUrl)
+                .accountType(accountType)
                 .build();
     }
 }
\ No newline at end of file
@@ -1,15 +1,16 @@
 
 package com.mycompany.rideapp.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springdoc.core.converters.models.Pageable;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.mycompany.rideapp.dto.DriverCandidate;
 import com.mycompany.rideapp.entity.Driver;
 import com.mycompany.rideapp.enums.AccountStatus;
 
@@ -21,11 +22,27 @@ public interface DriverRepository extends JpaRepository<Driver, String> {
 
         List<Driver> findByDriverStatus(AccountStatus driverStatus);
 
-        @Query("SELECT d FROM Driver d WHERE d.driverStatus = com.mycompany.rideapp.enums.AccountStatus.ACTIVE ORDER BY "
-                        + "((d.latitude - :lat) * (d.latitude - :lat) + (d.longitude - :lng) * (d.longitude - :lng)) ASC")
-        List<Driver> findNearestDrivers(@Param("lat") Double lat, @Param("lng") Double lng,
-                        PageRequest pageable);
+        @Query("SELECT d.id, d.driverStatus FROM Driver d")
+        List<Object[]> findDriverStatuses();
 
+        // ACTIVE drivers inside a WKT polygon (DriverGeography#box); needs the spatial column
+        @Query(value = "SELECT d.* FROM Drivers d WHERE d.driver_status = 'ACTIVE' " +
+                        "AND d.location.STIntersects(geography::STGeomFromText(:area, 4326)) = 1", nativeQuery = true)
+        List<Driver> findDriversInArea(@Param("area") String areaWkt);
+
+        // Nearest ACTIVE drivers at any distance as (id, latitude, longitude, meters). STDistance in both the
+        // IS NOT NULL filter and the ORDER BY under TOP lets SQL Server answer it from the spatial index
+        @Query(value = "SELECT TOP (:limit) d.id, d.latitude, d.longitude, " +
+                        "d.location.STDistance(geography::Point(:lat, :lng, 4326)) AS distance FROM Drivers d " +
+                        "WHERE d.location.STDistance(geography::Point(:lat, :lng, 4326)) IS NOT NULL " +
+                        "AND d.driver_status = 'ACTIVE' " +
+                        "AND (:vehicleType IS NULL OR EXISTS (SELECT 1 FROM VehicleRegister v " +
+                        "WHERE v.driver_id = d.id AND v.status = 'ACTIVE' AND v.vehicle_type = :vehicleType)) " +
+                        "ORDER BY d.location.STDistance(geography::Point(:lat, :lng, 4326))", nativeQuery = true)
+        List<Object[]> findNearestDrivers(@Param("lat") double lat, @Param("lng") double lng,
+                        @Param("limit") int limit, @Param("vehicleType") String vehicleType);
+
+        // Coordinate fallback for databases without geography
         @Query("SELECT d FROM Driver d WHERE d.driverStatus = com.mycompany.rideapp.enums.AccountStatus.ACTIVE " +
                         "AND d.latitude IS NOT NULL AND d.longitude IS NOT NULL " +
                         "AND d.latitude BETWEEN :minLat AND :maxLat " +
@@ -33,6 +50,31 @@ public interface DriverRepository extends JpaRepository<Driver, String> {
         List<Driver> findDriversByLocationBounds(@Param("minLat") Double minLat, @Param("maxLat") Double maxLat,
                         @Param("minLng") Double minLng, @Param("maxLng") Double maxLng);
 
+        @Query("SELECT d FROM Driver d WHERE d.driverStatus = com.mycompany.rideapp.enums.AccountStatus.ACTIVE " +
+                        "AND d.latitude IS NOT NULL AND d.longitude IS NOT NULL")
+        List<Driver> findActiveDriversWithPosition();
+
+        @Query("SELECT v.driver.id, v.vehicleType FROM VehicleRegister v " +
+                        "WHERE v.status = com.mycompany.rideapp.enums.VehicleStatus.ACTIVE")
+        List<Object[]> findActiveVehicleTypes();
+
+        @Query("SELECT v.vehicleType FROM VehicleRegister v WHERE v.driver.id = :driverId " +
+                        "AND v.status = com.mycompany.rideapp.enums.VehicleStatus.ACTIVE")
+        List<String> findActiveVehicleTypesByDriverId(@Param("driverId") String driverId);
+
+        // One row per ACTIVE driver and matching ACTIVE vehicle, everything search results render
+        @Query("SELECT new com.mycompany.rideapp.dto.DriverCandidate(d.id, d.licenseNumber, d.driverStatus, " +
+                        "d.address, d.avatarUrl, d.rating, d.latitude, d.longitude, d.prefferedLatitude, " +
+                        "d.prefferedLongitude, v.id, v.vehicleType, v.vehicleNumber, v.vehicleBrand, u.id, u.name, " +
+                        "u.userName, u.phoneNumber, u.role, u.cccd, u.email, u.imageUrl, u.accountType) " +
+                        "FROM VehicleRegister v JOIN v.driver d LEFT JOIN d.user u " +
+                        "WHERE d.id IN :driverIds " +
+                        "AND d.driverStatus = com.mycompany.rideapp.enums.AccountStatus.ACTIVE " +
+                        "AND v.status = com.mycompany.rideapp.enums.VehicleStatus.ACTIVE " +
+                        "AND v.vehicleType IN :vehicleTypes")
+        List<DriverCandidate> findCandidates(@Param("driverIds") Collection<String> driverIds,
+                        @Param("vehicleTypes") Collection<String> vehicleTypes);
+
         // @Query("SELECT d FROM Driver d WHERE d.driverStatus =
         // com.mycompany.rideapp.enums.AccountStatus.ACTIVE " +
         // + "ORDER BY ((d.latitude - :lat) * (d.latitude - :lng) * (d.longitude -
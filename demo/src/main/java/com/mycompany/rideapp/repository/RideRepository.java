@@ -1,26 +1,65 @@
 package com.mycompany.rideapp.repository;
 
-import java.lang.StackWalker.Option;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.mycompany.rideapp.entity.Ride;
 import com.mycompany.rideapp.enums.Status;
 
-public interface RideRepository extends JpaRepository<Ride, String> {
-    List<Ride> findByDriver_Id(String driverId);
+/**
+ * The Ride table only holds rides that are still in progress plus recently
+ * finished ones; RideArchiver moves older FINISHED/CANCELLED rides to
+ * RideArchive. History lookups ({@link RideRepositoryCustom}) read both tables,
+ * the active-ride lookup only needs the hot table.
+ */
+public interface RideRepository extends JpaRepository<Ride, String>, RideRepositoryCustom {
+    @Query("SELECT r FROM Ride r WHERE (r.driver.id = :userId OR r.customer.id = :userId) AND r.status NOT IN (com.mycompany.rideapp.enums.Status.FINISHED, com.mycompany.rideapp.enums.Status.CANCELLED)")
+    Optional<Ride> findActiveRideByUserId(@Param("userId") String userId);
 
-    List<Ride> findByCustomer_Id(String customerId);
+    /**
+     * Moves the ride to {@code target} if it is still in one of {@code from}
+     * and, when {@code expectedVersion} is given, still at that version.
+     *
+     * @return 1 when the transition happened, 0 otherwise
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ride r SET r.status = :target, r.version = r.version + 1 WHERE r.id = :id "
+            + "AND r.status IN :from AND (:expectedVersion IS NULL OR r.version = :expectedVersion)")
+    int transition(@Param("id") String id, @Param("from") Collection<Status> from, @Param("target") Status target,
+            @Param("expectedVersion") Long expectedVersion);
 
-    @Query("SELECT r FROM Ride r WHERE r.driver.id = :userId OR r.customer.id = :userId")
-    List<Ride> findByUserId(@Param("userId") String userId);
+    @Query("SELECT r FROM Ride r WHERE r.status NOT IN (com.mycompany.rideapp.enums.Status.FINISHED, com.mycompany.rideapp.enums.Status.CANCELLED)")
+    List<Ride> findActiveRides();
 
-    @Query("SELECT r FROM Ride r WHERE (r.driver.id = :userId OR r.customer.id = :userId) AND r.status NOT IN (com.mycompany.rideapp.enums.Status.FINISHED, com.mycompany.rideapp.enums.Status.CANCELLED)")
-    Optional<Ride> findActiveRideByUserId(@Param("userId") String userId);
+    // Archivable rides: terminal, older than the cutoff, and not referenced by a review or payment
+    @Query("SELECT r.id FROM Ride r WHERE r.status IN (com.mycompany.rideapp.enums.Status.FINISHED, com.mycompany.rideapp.enums.Status.CANCELLED) "
+            + "AND (r.rideDate < :cutoffDate OR (r.rideDate IS NULL AND r.endTime < :cutoffMillis)) "
+            + "AND NOT EXISTS (SELECT 1 FROM Review v WHERE v.ride = r) "
+            + "AND NOT EXISTS (SELECT 1 FROM Payment p WHERE p.ride = r)")
+    List<String> findArchivableIds(@Param("cutoffDate") java.sql.Date cutoffDate,
+            @Param("cutoffMillis") Long cutoffMillis, Pageable pageable);
+
+    @Modifying
+    @Query("INSERT INTO RideArchive (id, archiveMonth, driver, customer, startTime, endTime, startLatitude, "
+            + "startLongitude, endLatitude, endLongitude, distance, fare, status, vehicleType, startAddress, "
+            + "endAddress, rideDate, archivedAt) "
+            + "SELECT r.id, COALESCE(YEAR(r.rideDate) * 100 + MONTH(r.rideDate), :fallbackMonth), r.driver, "
+            + "r.customer, r.startTime, r.endTime, r.startLatitude, r.startLongitude, r.endLatitude, "
+            + "r.endLongitude, r.distance, r.fare, r.status, r.vehicleType, r.startAddress, r.endAddress, "
+            + "r.rideDate, :archivedAt FROM Ride r WHERE r.id IN :ids")
+    int copyToArchive(@Param("ids") List<String> ids, @Param("fallbackMonth") Integer fallbackMonth,
+            @Param("archivedAt") Long archivedAt);
 
-    Long countByCustomer_IdAndStatus(String customerId, Status status);
+    @Modifying
+    @Query("DELETE FROM Ride r WHERE r.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<String> ids);
 }
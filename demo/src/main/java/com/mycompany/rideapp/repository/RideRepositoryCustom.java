@@ -0,0 +1,50 @@
+package com.mycompany.rideapp.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.mycompany.rideapp.dto.RideCursor;
+import com.mycompany.rideapp.dto.RideListing;
+import com.mycompany.rideapp.entity.Ride;
+import com.mycompany.rideapp.enums.Status;
+
+/**
+ * Ride history queries that span both the hot Ride table and the
+ * RideArchive table. Implemented by {@link RideRepositoryImpl}; archived rides
+ * come back as detached {@link Ride} objects. History listings are read as
+ * {@link RideListing} projections, one query per table and page.
+ */
+public interface RideRepositoryCustom {
+
+    /**
+     * Whose rides a history query returns; USER matches the participant as
+     * either driver or customer.
+     */
+    enum HistoryScope {
+        ALL, DRIVER, CUSTOMER, USER
+    }
+
+    /**
+     * One page of history from both tables, newest first (see
+     * {@link RideCursor} for the order).
+     *
+     * @param participantId ignored for {@link HistoryScope#ALL}
+     * @param after         null for the first page
+     */
+    List<RideListing> findHistoryPage(HistoryScope scope, String participantId, RideCursor after, int limit);
+
+    /**
+     * Whole history, hot table first and then the archive, each newest first.
+     * Rows are fetched in chunks. Must be consumed and closed inside a
+     * transaction.
+     */
+    Stream<RideListing> streamHistory(HistoryScope scope, String participantId);
+
+    Long countByCustomer_IdAndStatus(String customerId, Status status);
+
+    /**
+     * Hot table first, then the archive.
+     */
+    Optional<Ride> findAnyById(String id);
+}
@@ -0,0 +1,172 @@
+package com.mycompany.rideapp.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import com.mycompany.rideapp.dto.RideCursor;
+import com.mycompany.rideapp.dto.RideListing;
+import com.mycompany.rideapp.entity.Ride;
+import com.mycompany.rideapp.entity.RideArchive;
+import com.mycompany.rideapp.enums.Status;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class RideRepositoryImpl implements RideRepositoryCustom {
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final String DRIVER = "x.driver.id = :participantId";
+    private static final String CUSTOMER = "x.customer.id = :participantId";
+
+    // One row per ride; the correlated subquery picks a single ACTIVE vehicle per driver
+    private static final String LISTING = "SELECT new com.mycompany.rideapp.dto.RideListing(x.id, x.startTime, "
+            + "x.endTime, x.startLatitude, x.startLongitude, x.endLatitude, x.endLongitude, x.distance, x.fare, "
+            + "x.status, x.vehicleType, x.startAddress, x.endAddress, x.rideDate, "
+            + "d.id, d.licenseNumber, d.driverStatus, d.address, d.avatarUrl, d.rating, d.latitude, d.longitude, "
+            + "d.prefferedLatitude, d.prefferedLongitude, v.id, v.vehicleType, v.vehicleNumber, v.vehicleBrand, "
+            + "du.id, du.name, du.userName, du.phoneNumber, du.role, du.cccd, du.email, du.imageUrl, "
+            + "du.accountType, c.id, c.name, c.userName, c.phoneNumber, c.role, c.cccd, c.email, c.imageUrl, "
+            + "c.accountType) "
+            + "FROM %s x LEFT JOIN x.driver d LEFT JOIN d.user du LEFT JOIN x.customer c "
+            + "LEFT JOIN VehicleRegister v ON v.id = (SELECT MIN(v2.id) FROM VehicleRegister v2 "
+            + "WHERE v2.driver = d AND v2.status = com.mycompany.rideapp.enums.VehicleStatus.ACTIVE)";
+
+    // Same order as the ORDER BY below: SQL Server sorts NULL dates last when descending
+    private static final Comparator<RideListing> NEWEST_FIRST = Comparator
+            .comparing(RideListing::getRideDate, Comparator.nullsFirst(Comparator.<java.sql.Date>naturalOrder()))
+            .thenComparing(RideListing::getId)
+            .reversed();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RideListing> findHistoryPage(HistoryScope scope, String participantId, RideCursor after,
+            int limit) {
+        Map<String, RideListing> rides = new LinkedHashMap<>();
+        historyQuery(Ride.class, hotCondition(scope), participantId, after)
+                .setMaxResults(limit)
+                .getResultList()
+                .forEach(ride -> rides.put(ride.getId(), ride));
+
+        // Two index seeks instead of an OR over the whole archive
+        for (String condition : archiveConditions(scope)) {
+            historyQuery(RideArchive.class, condition, participantId, after)
+                    .setMaxResults(limit)
+                    .getResultList()
+                    .forEach(ride -> rides.putIfAbsent(ride.getId(), ride));
+        }
+
+        return rides.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<RideListing> streamHistory(HistoryScope scope, String participantId) {
+        // Opened one after the other, so only one result set is ever open on the connection
+        Supplier<Stream<RideListing>> hot = () -> streamQuery(Ride.class, hotCondition(scope), participantId);
+        Supplier<Stream<RideListing>> archived = () -> streamQuery(RideArchive.class, hotCondition(scope),
+                participantId);
+        return Stream.of(hot, archived).flatMap(Supplier::get);
+    }
+
+    @Override
+    public Long countByCustomer_IdAndStatus(String customerId, Status status) {
+        Long hot = entityManager
+                .createQuery("SELECT COUNT(r) FROM Ride r WHERE r.customer.id = :id AND r.status = :status",
+                        Long.class)
+                .setParameter("id", customerId)
+                .setParameter("status", status)
+                .getSingleResult();
+        Long archived = entityManager
+                .createQuery("SELECT COUNT(a) FROM RideArchive a WHERE a.customer.id = :id AND a.status = :status",
+                        Long.class)
+                .setParameter("id", customerId)
+                .setParameter("status", status)
+                .getSingleResult();
+        return hot + archived;
+    }
+
+    @Override
+    public Optional<Ride> findAnyById(String id) {
+        Ride ride = entityManager.find(Ride.class, id);
+        if (ride != null) {
+            return Optional.of(ride);
+        }
+        return Optional.ofNullable(entityManager.find(RideArchive.class, id)).map(RideArchive::toRide);
+    }
+
+    private String hotCondition(HistoryScope scope) {
+        switch (scope) {
+            case DRIVER:
+                return DRIVER;
+            case CUSTOMER:
+                return CUSTOMER;
+            case USER:
+                return "(" + DRIVER + " OR " + CUSTOMER + ")";
+            default:
+                return null;
+        }
+    }
+
+    private List<String> archiveConditions(HistoryScope scope) {
+        if (scope == HistoryScope.USER) {
+            return List.of(DRIVER, CUSTOMER);
+        }
+        return Collections.singletonList(hotCondition(scope));
+    }
+
+    private TypedQuery<RideListing> historyQuery(Class<?> table, String condition, String participantId,
+            RideCursor after) {
+        List<String> where = new ArrayList<>();
+        if (condition != null) {
+            where.add(condition);
+        }
+        if (after != null) {
+            where.add(after.getRideDate() != null
+                    ? "(x.rideDate < :afterDate OR (x.rideDate = :afterDate AND x.id < :afterId) OR x.rideDate IS NULL)"
+                    : "(x.rideDate IS NULL AND x.id < :afterId)");
+        }
+
+        TypedQuery<RideListing> query = entityManager.createQuery(select(table, where), RideListing.class);
+        if (condition != null) {
+            query.setParameter("participantId", participantId);
+        }
+        if (after != null) {
+            if (after.getRideDate() != null) {
+                query.setParameter("afterDate", after.getRideDate());
+            }
+            query.setParameter("afterId", after.getId());
+        }
+        return query;
+    }
+
+    private Stream<RideListing> streamQuery(Class<?> table, String condition, String participantId) {
+        TypedQuery<RideListing> query = entityManager
+                .createQuery(select(table, condition != null ? List.of(condition) : List.of()), RideListing.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE);
+        if (condition != null) {
+            query.setParameter("participantId", participantId);
+        }
+        return query.getResultStream();
+    }
+
+    private String select(Class<?> table, List<String> where) {
+        return String.format(LISTING, table.getSimpleName())
+                + (where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where))
+                + " ORDER BY x.rideDate DESC, x.id DESC";
+    }
+}
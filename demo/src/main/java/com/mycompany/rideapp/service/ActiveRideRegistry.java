@@ -0,0 +1,141 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mycompany.rideapp.dto.response.DriverResponse;
+import com.mycompany.rideapp.dto.response.RideResponse;
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.mapper.RideMapper;
+import com.mycompany.rideapp.repository.RideRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pre-rendered snapshots of every ride that is not FINISHED/CANCELLED, keyed
+ * by ride id and by both participant ids, so the polled active-ride lookup
+ * never touches SQL. Rebuilt from the database on startup and kept current by
+ * RideService; with {@code app.dispatch.active-rides=redis} every change is
+ * also replicated to the other nodes. Reads overlay the driver's latest
+ * buffered position.
+ */
+@Component
+@Slf4j
+public class ActiveRideRegistry {
+    private final RideRepository rideRepository;
+    private final RideMapper rideMapper;
+    private final DriverPositionBuffer driverPositionBuffer;
+    private final ObjectProvider<ActiveRideReplicator> replicator;
+
+    private final Map<String, RideResponse> ridesById = new ConcurrentHashMap<>();
+    private final Map<String, String> rideIdByParticipant = new ConcurrentHashMap<>();
+
+    public ActiveRideRegistry(RideRepository rideRepository, RideMapper rideMapper,
+            DriverPositionBuffer driverPositionBuffer, ObjectProvider<ActiveRideReplicator> replicator) {
+        this.rideRepository = rideRepository;
+        this.rideMapper = rideMapper;
+        this.driverPositionBuffer = driverPositionBuffer;
+        this.replicator = replicator;
+    }
+
+    @PostConstruct
+    public void init() {
+        replicator.ifAvailable(r -> r.setHandler(this::apply));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        List<RideResponse> active = rideRepository.findActiveRides().stream()
+                .map(rideMapper::toResponse)
+                .collect(Collectors.toList());
+        synchronized (this) {
+            ridesById.clear();
+            rideIdByParticipant.clear();
+            active.forEach(this::apply);
+        }
+        log.info("[ACTIVE_RIDES] Loaded {} active rides", ridesById.size());
+    }
+
+    /**
+     * Records the latest state of a ride. Terminal states drop it.
+     */
+    public void update(RideResponse ride) {
+        apply(ride);
+        replicator.ifAvailable(r -> r.publish(ride));
+    }
+
+    public void remove(String rideId) {
+        RideResponse ride = ridesById.get(rideId);
+        if (ride != null) {
+            update(ride.toBuilder().status(Status.CANCELLED).build());
+        }
+    }
+
+    /**
+     * Active ride of a customer (user id) or driver (driver id), or null.
+     */
+    public RideResponse findByParticipant(String participantId) {
+        String rideId = rideIdByParticipant.get(participantId);
+        RideResponse ride = rideId != null ? ridesById.get(rideId) : null;
+        return ride != null ? withLivePosition(ride) : null;
+    }
+
+    public boolean hasActiveRide(String participantId) {
+        return rideIdByParticipant.containsKey(participantId);
+    }
+
+    public int size() {
+        return ridesById.size();
+    }
+
+    synchronized void apply(RideResponse ride) {
+        RideResponse previous = ridesById.get(ride.getId());
+        if (previous != null) {
+            participants(previous).forEach(id -> rideIdByParticipant.remove(id, ride.getId()));
+        }
+
+        if (ride.getStatus() == Status.FINISHED || ride.getStatus() == Status.CANCELLED) {
+            ridesById.remove(ride.getId());
+            return;
+        }
+        ridesById.put(ride.getId(), ride);
+        participants(ride).forEach(id -> rideIdByParticipant.put(id, ride.getId()));
+    }
+
+    private List<String> participants(RideResponse ride) {
+        String driverId = ride.getDriver() != null ? ride.getDriver().getId() : null;
+        String customerId = ride.getCustomer() != null ? ride.getCustomer().getId() : null;
+        if (driverId == null) {
+            return customerId == null ? List.of() : List.of(customerId);
+        }
+        return customerId == null ? List.of(driverId) : List.of(driverId, customerId);
+    }
+
+    private RideResponse withLivePosition(RideResponse ride) {
+        DriverResponse driver = ride.getDriver();
+        DriverPositionBuffer.BufferedPosition position = driver != null ? driverPositionBuffer.get(driver.getId())
+                : null;
+        if (position == null) {
+            return ride;
+        }
+        // Snapshots are shared, so overlay on a copy
+        return ride.toBuilder()
+                .driver(driver.toBuilder()
+                        .latitude(position.getLatitude())
+                        .longitude(position.getLongitude())
+                        .build())
+                .driverLat(position.getLatitude())
+                .driverLng(position.getLongitude())
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.mycompany.rideapp.service;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.rideapp.dto.response.RideResponse;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fans {@link ActiveRideRegistry} changes out to every node over the
+ * {@code rides:active} Redis channel. Only created with
+ * {@code app.dispatch.active-rides=redis}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.active-rides", havingValue = "redis")
+@Slf4j
+public class ActiveRideReplicator {
+    private static final ChannelTopic TOPIC = new ChannelTopic("rides:active");
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Consumer<RideResponse> handler = ride -> {
+    };
+
+    public ActiveRideReplicator(StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory,
+            ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.container.setConnectionFactory(connectionFactory);
+    }
+
+    public void setHandler(Consumer<RideResponse> handler) {
+        this.handler = handler;
+    }
+
+    public void publish(RideResponse ride) {
+        try {
+            String payload = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                    .put("origin", nodeId)
+                    .set("ride", objectMapper.valueToTree(ride)));
+            redisTemplate.convertAndSend(TOPIC.getTopic(), payload);
+        } catch (Exception e) {
+            log.warn("[ACTIVE_RIDES] Could not replicate ride {}", ride.getId(), e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        container.addMessageListener((message, pattern) -> {
+            try {
+                JsonNode envelope = objectMapper.readTree(message.getBody());
+                if (nodeId.equals(envelope.path("origin").asText())) {
+                    return;
+                }
+                handler.accept(objectMapper.treeToValue(envelope.get("ride"), RideResponse.class));
+            } catch (Exception e) {
+                log.warn("[ACTIVE_RIDES] Dropped malformed replication message", e);
+            }
+        }, TOPIC);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        container.stop();
+        container.destroy();
+    }
+}
@@ -0,0 +1,107 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost bipartite assignment (Hungarian algorithm, O(n^2 * m)).
+ * Pairs that must not be matched should carry {@link #FORBIDDEN}; they are
+ * reported as unassigned.
+ */
+public final class AssignmentSolver {
+    public static final double FORBIDDEN = 1e12;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * @param cost cost[row][column], rectangular
+     * @return for every row the assigned column, or -1
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int columns = cost[0].length;
+        if (columns == 0) {
+            int[] none = new int[rows];
+            Arrays.fill(none, -1);
+            return none;
+        }
+
+        if (rows > columns) {
+            // The algorithm needs rows <= columns, so solve the transposed problem
+            double[][] transposed = new double[columns][rows];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    transposed[j][i] = cost[i][j];
+                }
+            }
+            int[] byColumn = solve(transposed);
+            int[] result = new int[rows];
+            Arrays.fill(result, -1);
+            for (int j = 0; j < columns; j++) {
+                if (byColumn[j] >= 0) {
+                    result[byColumn[j]] = j;
+                }
+            }
+            return result;
+        }
+
+        double[] u = new double[rows + 1];
+        double[] v = new double[columns + 1];
+        int[] match = new int[columns + 1];
+        int[] way = new int[columns + 1];
+
+        for (int i = 1; i <= rows; i++) {
+            match[0] = i;
+            int j0 = 0;
+            double[] minv = new double[columns + 1];
+            boolean[] used = new boolean[columns + 1];
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            do {
+                used[j0] = true;
+                int i0 = match[j0];
+                int j1 = 0;
+                double delta = Double.POSITIVE_INFINITY;
+                for (int j = 1; j <= columns; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double reduced = cost[i0 - 1][j - 1] - u[i0] - v[j];
+                    if (reduced < minv[j]) {
+                        minv[j] = reduced;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= columns; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (match[j0] != 0);
+            do {
+                int j1 = way[j0];
+                match[j0] = match[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] result = new int[rows];
+        Arrays.fill(result, -1);
+        for (int j = 1; j <= columns; j++) {
+            if (match[j] != 0 && cost[match[j] - 1][j - 1] < FORBIDDEN) {
+                result[match[j] - 1] = j - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,134 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects pending rides that need a driver over a short window and solves one
+ * global assignment (minimum total pickup distance) per window, so that nearby
+ * rides never compete for the same driver. Only used in
+ * {@code app.dispatch.mode=BATCH}.
+ */
+@Component
+@Slf4j
+public class BatchMatcher {
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    private final Queue<String> waiting = new ConcurrentLinkedQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService window = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "batch-matcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<List<String>> handler = batch -> {
+    };
+
+    public BatchMatcher(DispatchProperties properties) {
+        this.windowMs = properties.getBatch().getWindowMs();
+        this.maxBatchSize = properties.getBatch().getMaxBatchSize();
+    }
+
+    public void setHandler(Consumer<List<String>> handler) {
+        this.handler = handler;
+    }
+
+    public void enqueue(String rideRequestId) {
+        if (queued.add(rideRequestId)) {
+            waiting.add(rideRequestId);
+        }
+    }
+
+    public int waitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * Solves the assignment for one batch.
+     *
+     * @param candidatesByRide candidate drivers per ride, nearest first
+     * @return driver id per ride; rides that got no driver are absent
+     */
+    public Map<String, String> assign(Map<String, List<NearbyDriver>> candidatesByRide) {
+        List<String> rideIds = new ArrayList<>(candidatesByRide.keySet());
+        Map<String, Integer> driverColumns = new LinkedHashMap<>();
+        candidatesByRide.values().forEach(candidates -> candidates
+                .forEach(candidate -> driverColumns.putIfAbsent(candidate.getDriverId(), driverColumns.size())));
+
+        Map<String, String> assignment = new HashMap<>();
+        if (rideIds.isEmpty() || driverColumns.isEmpty()) {
+            return assignment;
+        }
+
+        double[][] cost = new double[rideIds.size()][driverColumns.size()];
+        for (int row = 0; row < rideIds.size(); row++) {
+            Arrays.fill(cost[row], AssignmentSolver.FORBIDDEN);
+            for (NearbyDriver candidate : candidatesByRide.get(rideIds.get(row))) {
+                cost[row][driverColumns.get(candidate.getDriverId())] = candidate.getDistanceMeters();
+            }
+        }
+
+        int[] columns = AssignmentSolver.solve(cost);
+        List<String> driverIds = new ArrayList<>(driverColumns.keySet());
+        for (int row = 0; row < columns.length; row++) {
+            if (columns[row] >= 0) {
+                assignment.put(rideIds.get(row), driverIds.get(columns[row]));
+            }
+        }
+        return assignment;
+    }
+
+    @PostConstruct
+    public void start() {
+        window.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        window.shutdownNow();
+    }
+
+    private void flush() {
+        List<String> batch = new ArrayList<>();
+        String rideRequestId;
+        while (batch.size() < maxBatchSize && (rideRequestId = waiting.poll()) != null) {
+            queued.remove(rideRequestId);
+            batch.add(rideRequestId);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            handler.accept(batch);
+            log.info("[BATCH] Matched window of {} rides in {} ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            log.error("[BATCH] Matching window of {} rides failed", batch.size(), e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.mycompany.rideapp.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.repository.UserRepository;
+
+/**
+ * Small LRU cache of customer display data used when building ride offers.
+ * Entries expire after {@code app.dispatch.customer-cache.ttl-ms} and are
+ * dropped by UserService whenever a profile changes.
+ */
+@Component
+public class CustomerInfoCache {
+    private final UserRepository userRepository;
+    private final long ttlMs;
+    private final Map<String, CachedName> names;
+
+    public CustomerInfoCache(UserRepository userRepository, DispatchProperties properties) {
+        this.userRepository = userRepository;
+        this.ttlMs = properties.getCustomerCache().getTtlMs();
+        int maxSize = properties.getCustomerCache().getMaxSize();
+        this.names = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedName> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Display name of the customer, or null when the user is unknown or has no
+     * name. Misses are not cached.
+     */
+    public String getDisplayName(String customerId) {
+        if (customerId == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (names) {
+            CachedName cached = names.get(customerId);
+            if (cached != null && cached.expiresAt > now) {
+                return cached.name;
+            }
+        }
+
+        String name = userRepository.findById(customerId).map(User::getName).orElse(null);
+        if (name != null) {
+            synchronized (names) {
+                names.put(customerId, new CachedName(name, now + ttlMs));
+            }
+        }
+        return name;
+    }
+
+    public void invalidate(String userId) {
+        synchronized (names) {
+            names.remove(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (names) {
+            return names.size();
+        }
+    }
+
+    private static final class CachedName {
+        private final String name;
+        private final long expiresAt;
+
+        private CachedName(String name, long expiresAt) {
+            this.name = name;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives the retry cycle of pending rides. Instead of one fixed-rate task per
+ * ride, every pending ride id sits in a single {@link HashedTimingWheel}; one
+ * thread advances the wheel and hands all rides that are due in a tick to the
+ * registered handler as one batch. Deadlines are mirrored into the
+ * {@link PendingRideStore}, and a periodic sweep pulls in rides whose owning
+ * node stopped ticking them and drops lapsed offer claims.
+ */
+@Component
+@Slf4j
+public class DispatchScheduler {
+    private final HashedTimingWheel<String> wheel;
+    private final long retryIntervalMs;
+    private final int maxRetries;
+    private final long leaseMs;
+    private final long orphanGraceMs;
+    private final long sweepIntervalMs;
+    private final PendingRideStore pendingRideStore;
+    private final OfferStore offerStore;
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dispatch-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Consumer<List<String>> handler = batch -> {
+    };
+
+    public DispatchScheduler(DispatchProperties properties, MeterRegistry meterRegistry,
+            PendingRideStore pendingRideStore, OfferStore offerStore) {
+        DispatchProperties.Scheduler config = properties.getScheduler();
+        this.wheel = new HashedTimingWheel<>(config.getTickMs(), config.getWheelSize(), System.currentTimeMillis());
+        this.retryIntervalMs = config.getRetryIntervalMs();
+        this.maxRetries = config.getMaxRetries();
+        this.leaseMs = config.getLeaseMs();
+        this.orphanGraceMs = config.getOrphanGraceMs();
+        this.sweepIntervalMs = config.getSweepIntervalMs();
+        this.pendingRideStore = pendingRideStore;
+        this.offerStore = offerStore;
+
+        Gauge.builder("dispatch.scheduler.queue.depth", wheel, HashedTimingWheel::size)
+                .description("Pending rides waiting for their next retry tick")
+                .register(meterRegistry);
+        Gauge.builder("dispatch.scheduler.tick.lag", wheel, w -> w.lagMs(System.currentTimeMillis()))
+                .description("How far the dispatch wheel is behind wall-clock time")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public void setHandler(Consumer<List<String>> handler) {
+        this.handler = handler;
+    }
+
+    public void schedule(String rideRequestId) {
+        schedule(rideRequestId, retryIntervalMs);
+    }
+
+    public void schedule(String rideRequestId, long delayMs) {
+        long now = System.currentTimeMillis();
+        wheel.schedule(rideRequestId, delayMs, now);
+        pendingRideStore.scheduleDeadline(rideRequestId, now + delayMs);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Claims the retry tick that just became due. False when another node is
+     * already processing it.
+     */
+    public boolean claim(String rideRequestId) {
+        return pendingRideStore.tryAcquireLease(rideRequestId, leaseMs);
+    }
+
+    public int queueDepth() {
+        return wheel.size();
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(this::tick, wheel.getTickMs(), wheel.getTickMs(), TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::recoverOrphans, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            List<String> due = wheel.advance(System.currentTimeMillis());
+            if (!due.isEmpty()) {
+                handler.accept(due);
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the fixed-rate ticker
+            log.error("[DISPATCH] Tick failed", e);
+        }
+    }
+
+    private void recoverOrphans() {
+        try {
+            long now = System.currentTimeMillis();
+            offerStore.evictExpired(now);
+            List<String> overdue = pendingRideStore.findOverdue(now - orphanGraceMs, 500);
+            for (String rideRequestId : overdue) {
+                wheel.schedule(rideRequestId, 0, now);
+            }
+            if (!overdue.isEmpty()) {
+                log.info("[DISPATCH] Took over {} overdue rides", overdue.size());
+            }
+        } catch (Exception e) {
+            log.error("[DISPATCH] Orphan sweep failed", e);
+        }
+    }
+}
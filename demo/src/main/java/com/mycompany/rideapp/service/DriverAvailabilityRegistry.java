@@ -0,0 +1,59 @@
+package com.mycompany.rideapp.service;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.enums.DriverAvailability;
+
+/**
+ * Dispatch availability of every driver, answered in O(1) without SQL. A
+ * driver is ON_TRIP while ActiveRideRegistry holds a ride of theirs, OFFERED
+ * while holding an unanswered ride offer, and IDLE otherwise. Offers are
+ * claimed atomically, so a driver never holds two at once; an offer nobody
+ * withdrew lapses after two retry intervals. Claims live in the
+ * {@link OfferStore}, so with the Redis store they hold across nodes.
+ */
+@Component
+public class DriverAvailabilityRegistry {
+    private final ActiveRideRegistry activeRideRegistry;
+    private final OfferStore offerStore;
+    private final long offerTtlMs;
+
+    public DriverAvailabilityRegistry(ActiveRideRegistry activeRideRegistry, OfferStore offerStore,
+            DispatchProperties properties) {
+        this.activeRideRegistry = activeRideRegistry;
+        this.offerStore = offerStore;
+        this.offerTtlMs = 2 * properties.getScheduler().getRetryIntervalMs();
+    }
+
+    public DriverAvailability stateOf(String driverId) {
+        if (activeRideRegistry.hasActiveRide(driverId)) {
+            return DriverAvailability.ON_TRIP;
+        }
+        return offerStore.claimOf(driverId) != null ? DriverAvailability.OFFERED : DriverAvailability.IDLE;
+    }
+
+    public boolean isIdle(String driverId) {
+        return stateOf(driverId) == DriverAvailability.IDLE;
+    }
+
+    /**
+     * Claims the driver for an offer of the ride. Claiming again for the same
+     * ride succeeds and extends the offer.
+     *
+     * @return false when the driver is on a trip or holds an offer for another ride
+     */
+    public boolean tryOffer(String driverId, String rideRequestId) {
+        if (activeRideRegistry.hasActiveRide(driverId)) {
+            return false;
+        }
+        return offerStore.tryClaim(driverId, rideRequestId, offerTtlMs);
+    }
+
+    /**
+     * Withdraws the driver's offer of the ride; offers of other rides are kept.
+     */
+    public void release(String driverId, String rideRequestId) {
+        offerStore.releaseClaim(driverId, rideRequestId);
+    }
+}
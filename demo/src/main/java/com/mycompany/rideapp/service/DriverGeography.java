@@ -0,0 +1,87 @@
+package com.mycompany.rideapp.service;
+
+import java.sql.DatabaseMetaData;
+import java.util.Locale;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Knows whether the Drivers table carries a {@code geography} point
+ * ({@code Drivers.location}, SRID 4326) with a spatial index, so area and
+ * nearest queries can use STIntersects/STDistance instead of coordinate
+ * ranges. The column is not mapped by JPA: schema-sqlserver.sql creates it
+ * after Hibernate's DDL, together with a trigger that recomputes it on every
+ * write of latitude/longitude. On other databases, or when the script did not
+ * run, {@link #isEnabled()} is false and callers fall back to the plain
+ * coordinate queries.
+ */
+@Component
+@Slf4j
+public class DriverGeography {
+    public static final int SRID = 4326;
+
+    private static final String DETECT = "SELECT CASE WHEN COL_LENGTH('Drivers', 'location') IS NOT NULL "
+            + "AND OBJECT_ID('TR_Drivers_location', 'TR') IS NOT NULL THEN 1 ELSE 0 END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean enabled;
+
+    public DriverGeography(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void detect() {
+        try {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                return metaData.getDatabaseProductName();
+            });
+            if (product == null || !product.toLowerCase(Locale.ROOT).contains("sql server")) {
+                log.info("[GEO] {} has no geography type, using coordinate queries", product);
+                return;
+            }
+
+            Integer ready = jdbcTemplate.queryForObject(DETECT, Integer.class);
+            enabled = ready != null && ready == 1;
+            if (enabled) {
+                log.info("[GEO] Spatial driver index ready");
+            } else {
+                log.warn("[GEO] Drivers.location or its trigger is missing, using coordinate queries");
+            }
+        } catch (DataAccessException e) {
+            log.warn("[GEO] Could not check the spatial driver index, using coordinate queries", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the box can be sent as a geography polygon. SQL Server rejects
+     * polygons larger than a hemisphere, and a box touching a pole or spanning
+     * half the globe in longitude is not the area its corners suggest; such
+     * boxes go through the coordinate query instead.
+     */
+    public static boolean fitsPolygon(double minLat, double maxLat, double minLng, double maxLng) {
+        return minLat > -90 && maxLat < 90 && minLat < maxLat
+                && minLng >= -180 && maxLng <= 180 && minLng < maxLng && maxLng - minLng < 180;
+    }
+
+    /**
+     * Well-known text of a lat/lng box. The ring runs counter-clockwise, which
+     * geography reads as the inside of the box.
+     */
+    public static String box(double minLat, double maxLat, double minLng, double maxLng) {
+        return String.format(Locale.ROOT, "POLYGON((%1$s %3$s, %2$s %3$s, %2$s %4$s, %1$s %4$s, %1$s %3$s))",
+                minLng, maxLng, minLat, maxLat);
+    }
+}
@@ -0,0 +1,246 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.VehicleType;
+
+/**
+ * In-memory grid index of ACTIVE drivers, the default (single node) location
+ * store. The world is cut into square cells of
+ * {@code app.dispatch.index.cell-size-degrees}; a nearest-k lookup scans rings of
+ * cells around the query point and stops as soon as no closer driver can exist,
+ * or at {@code app.dispatch.index.max-search-radius-km}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.location-store", havingValue = "local", matchIfMissing = true)
+public class DriverLocationIndex implements DriverLocationStore {
+    private static final double EARTH_RADIUS_METERS = 6_371_000d;
+    private static final double METERS_PER_DEGREE = 111_320d;
+
+    private final double cellSize;
+    private final int maxRings;
+    private final long columns;
+
+    private final Map<String, IndexedDriver> drivers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+    public DriverLocationIndex(DispatchProperties properties) {
+        this.cellSize = properties.getIndex().getCellSizeDegrees();
+        double radiusDegrees = properties.getIndex().getMaxSearchRadiusKm() * 1000 / METERS_PER_DEGREE;
+        this.maxRings = (int) Math.ceil(radiusDegrees / cellSize);
+        this.columns = (long) Math.ceil(360 / cellSize) + 1;
+    }
+
+    @Override
+    public void upsert(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes) {
+        Set<VehicleType> types = vehicleTypes == null || vehicleTypes.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(vehicleTypes));
+        drivers.compute(driverId, (id, current) -> relocate(id, current, lat, lng, types));
+    }
+
+    @Override
+    public void seed(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes) {
+        Set<VehicleType> types = vehicleTypes == null || vehicleTypes.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(vehicleTypes));
+        drivers.compute(driverId, (id, current) -> current != null ? current : relocate(id, null, lat, lng, types));
+    }
+
+    @Override
+    public boolean move(String driverId, double lat, double lng) {
+        return drivers.computeIfPresent(driverId,
+                (id, current) -> relocate(id, current, lat, lng, current.vehicleTypes)) != null;
+    }
+
+    @Override
+    public void remove(String driverId) {
+        drivers.computeIfPresent(driverId, (id, current) -> {
+            leaveCell(current.cell, id);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean contains(String driverId) {
+        return drivers.containsKey(driverId);
+    }
+
+    @Override
+    public int size() {
+        return drivers.size();
+    }
+
+    @Override
+    public void clear() {
+        drivers.clear();
+        cells.clear();
+    }
+
+    @Override
+    public List<NearbyDriver> findNearest(double lat, double lng, int limit, VehicleType vehicleType) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<NearbyDriver> best = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyDriver::getDistanceMeters).reversed());
+        long row = row(lat);
+        long column = column(lng);
+        // Longitude cells are the narrow side away from the equator
+        double cellWidthMeters = cellSize * METERS_PER_DEGREE * Math.cos(Math.toRadians(lat));
+
+        for (int ring = 0; ring <= maxRings; ring++) {
+            // Every cell in this ring is at least (ring - 1) cell widths away
+            if (best.size() == limit && ring > 0
+                    && best.peek().getDistanceMeters() <= (ring - 1) * cellWidthMeters) {
+                break;
+            }
+            scanRing(row, column, ring, lat, lng, vehicleType, limit, best);
+        }
+
+        List<NearbyDriver> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyDriver::getDistanceMeters));
+        return result;
+    }
+
+    @Override
+    public List<NearbyDriver> findInBox(double minLat, double maxLat, double minLng, double maxLng, int limit) {
+        List<NearbyDriver> result = new ArrayList<>();
+        double centerLat = (minLat + maxLat) / 2;
+        double centerLng = (minLng + maxLng) / 2;
+        for (long row = row(minLat); row <= row(maxLat); row++) {
+            for (long column = column(minLng); column <= column(maxLng); column++) {
+                long cell = cellKey(row, column);
+                Set<String> members = cells.get(cell);
+                if (members == null) {
+                    continue;
+                }
+                for (String driverId : members) {
+                    IndexedDriver entry = drivers.get(driverId);
+                    if (entry == null || entry.cell != cell
+                            || entry.latitude < minLat || entry.latitude > maxLat
+                            || entry.longitude < minLng || entry.longitude > maxLng) {
+                        continue;
+                    }
+                    if (result.size() >= limit) {
+                        return result;
+                    }
+                    result.add(new NearbyDriver(driverId, entry.latitude, entry.longitude,
+                            distanceMeters(centerLat, centerLng, entry.latitude, entry.longitude)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void scanRing(long row, long column, int ring, double lat, double lng, VehicleType vehicleType,
+            int limit, PriorityQueue<NearbyDriver> best) {
+        for (int dr = -ring; dr <= ring; dr++) {
+            boolean edgeRow = Math.abs(dr) == ring;
+            for (int dc = -ring; dc <= ring; dc += edgeRow ? 1 : Math.max(1, 2 * ring)) {
+                scanCell(cellKey(row + dr, column + dc), lat, lng, vehicleType, limit, best);
+            }
+        }
+    }
+
+    private void scanCell(long cell, double lat, double lng, VehicleType vehicleType, int limit,
+            PriorityQueue<NearbyDriver> best) {
+        Set<String> members = cells.get(cell);
+        if (members == null) {
+            return;
+        }
+        for (String driverId : members) {
+            IndexedDriver entry = drivers.get(driverId);
+            // Skip entries that moved to another cell while we were scanning
+            if (entry == null || entry.cell != cell) {
+                continue;
+            }
+            if (vehicleType != null && !entry.vehicleTypes.contains(vehicleType)) {
+                continue;
+            }
+            offer(best, limit, new NearbyDriver(driverId, entry.latitude, entry.longitude,
+                    distanceMeters(lat, lng, entry.latitude, entry.longitude)));
+        }
+    }
+
+    private static void offer(PriorityQueue<NearbyDriver> best, int limit, NearbyDriver candidate) {
+        if (best.size() < limit) {
+            best.add(candidate);
+        } else if (candidate.getDistanceMeters() < best.peek().getDistanceMeters()) {
+            best.poll();
+            best.add(candidate);
+        }
+    }
+
+    private IndexedDriver relocate(String driverId, IndexedDriver current, double lat, double lng,
+            Set<VehicleType> types) {
+        long cell = cellKey(row(lat), column(lng));
+        if (current == null || current.cell != cell) {
+            if (current != null) {
+                leaveCell(current.cell, driverId);
+            }
+            cells.compute(cell, (key, members) -> {
+                Set<String> target = members != null ? members : ConcurrentHashMap.newKeySet();
+                target.add(driverId);
+                return target;
+            });
+        }
+        return new IndexedDriver(lat, lng, cell, types);
+    }
+
+    private void leaveCell(long cell, String driverId) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(driverId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((lat + 90) / cellSize);
+    }
+
+    private long column(double lng) {
+        return (long) Math.floor((lng + 180) / cellSize);
+    }
+
+    private long cellKey(long row, long column) {
+        return row * columns + Math.floorMod(column, columns);
+    }
+
+    static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    private static final class IndexedDriver {
+        final double latitude;
+        final double longitude;
+        final long cell;
+        final Set<VehicleType> vehicleTypes;
+
+        IndexedDriver(double latitude, double longitude, long cell, Set<VehicleType> vehicleTypes) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+            this.vehicleTypes = vehicleTypes;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+import java.util.Set;
+
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.VehicleType;
+
+/**
+ * Live location view of ACTIVE drivers, partitioned by vehicle type. Selected
+ * with {@code app.dispatch.location-store}: {@code local} keeps a per-node grid
+ * index, {@code redis} shares one GEO set per vehicle type across nodes.
+ */
+public interface DriverLocationStore {
+
+    void upsert(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes);
+
+    /**
+     * Startup load from the database. Adds the driver only when the store does
+     * not know it yet, so a node restarting never overwrites the fresher
+     * positions other nodes keep writing to a shared store.
+     */
+    void seed(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes);
+
+    /**
+     * Moves a driver that is already in the store. Returns false when the driver
+     * is unknown (i.e. not ACTIVE), so position pings never re-add offline drivers.
+     */
+    boolean move(String driverId, double lat, double lng);
+
+    void remove(String driverId);
+
+    boolean contains(String driverId);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Nearest drivers first, within {@code app.dispatch.index.max-search-radius-km}
+     * only. A null vehicle type searches every partition.
+     */
+    List<NearbyDriver> findNearest(double lat, double lng, int limit, VehicleType vehicleType);
+
+    /**
+     * At most {@code limit} drivers inside the box, in no particular order.
+     * Distances are measured from the center of the box.
+     */
+    List<NearbyDriver> findInBox(double minLat, double maxLat, double minLng, double maxLng, int limit);
+}
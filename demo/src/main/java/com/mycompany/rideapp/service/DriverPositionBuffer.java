@@ -0,0 +1,137 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.entity.Driver;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind stage for driver GPS pings. Only the latest position per driver
+ * is kept; dirty positions are written to the Drivers table in one JDBC batch
+ * every {@code app.dispatch.position.flush-interval-ms}. Until a position has
+ * been flushed, reads must go through {@link #get(String)} / {@link #applyTo(Driver)}.
+ */
+@Component
+@Slf4j
+public class DriverPositionBuffer {
+    private static final String UPDATE_POSITION_SQL = "UPDATE Drivers SET latitude = ?, longitude = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long flushIntervalMs;
+    private final int batchSize;
+
+    private final Map<String, BufferedPosition> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "driver-position-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DriverPositionBuffer(JdbcTemplate jdbcTemplate, DispatchProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushIntervalMs = properties.getPosition().getFlushIntervalMs();
+        this.batchSize = properties.getPosition().getBatchSize();
+    }
+
+    public void record(String driverId, double lat, double lng) {
+        dirty.put(driverId, new BufferedPosition(lat, lng));
+    }
+
+    /**
+     * Latest position not yet written to the database, or null when the row in
+     * the Drivers table is already up to date.
+     */
+    public BufferedPosition get(String driverId) {
+        return driverId != null ? dirty.get(driverId) : null;
+    }
+
+    public void applyTo(Driver driver) {
+        BufferedPosition position = get(driver.getId());
+        if (position != null) {
+            driver.setLatitude(position.getLatitude());
+            driver.setLongitude(position.getLongitude());
+        }
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        log.info("📍 [POSITION] Flushed buffered driver positions on shutdown");
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Positions stay dirty and are retried on the next tick
+            log.error("📍 [POSITION] Failed to flush {} driver positions", dirty.size(), e);
+        }
+    }
+
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, BufferedPosition>> snapshot = new ArrayList<>(dirty.entrySet());
+        for (int from = 0; from < snapshot.size(); from += batchSize) {
+            List<Map.Entry<String, BufferedPosition>> batch = snapshot.subList(from,
+                    Math.min(from + batchSize, snapshot.size()));
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Map.Entry<String, BufferedPosition> entry : batch) {
+                args.add(new Object[] { entry.getValue().getLatitude(), entry.getValue().getLongitude(),
+                        entry.getKey() });
+            }
+            // Drivers.location follows through its trigger
+            jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, args);
+
+            // A newer ping that arrived during the write stays dirty
+            for (Map.Entry<String, BufferedPosition> entry : batch) {
+                dirty.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        log.debug("📍 [POSITION] Flushed {} driver positions", snapshot.size());
+    }
+
+    public static final class BufferedPosition {
+        private final double latitude;
+        private final double longitude;
+
+        BufferedPosition(double latitude, double longitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+    }
+}
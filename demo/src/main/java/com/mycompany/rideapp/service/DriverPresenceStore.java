@@ -0,0 +1,35 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last heartbeat per driver, in epoch millis. Follows
+ * {@code app.dispatch.location-store}: {@code local} keeps the table on this
+ * node, {@code redis} shares one sorted set so that every node sees heartbeats
+ * that arrived on the others.
+ */
+public interface DriverPresenceStore {
+
+    void touch(String driverId, long nowMs);
+
+    /**
+     * Like {@link #touch}, but keeps an existing heartbeat.
+     */
+    void touchIfAbsent(String driverId, long nowMs);
+
+    void remove(String driverId);
+
+    /**
+     * Last heartbeat of each of the drivers; drivers never seen are absent.
+     */
+    Map<String, Long> lastSeen(Collection<String> driverIds);
+
+    /**
+     * Atomically removes and returns drivers last seen before {@code beforeMs}.
+     */
+    List<String> expire(long beforeMs, int limit);
+
+    long countSeenSince(long sinceMs);
+}
@@ -0,0 +1,219 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.AccountStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks which ACTIVE drivers are actually connected. Every position ping and
+ * STOMP CONNECT is a heartbeat; a driver silent for longer than
+ * {@code app.dispatch.presence.timeout-ms}, or whose last session disconnected,
+ * is offline and taken out of the location store until the next ping puts it
+ * back. Exported as the {@code drivers.presence} gauge.
+ */
+@Component
+@Slf4j
+public class DriverPresenceTracker {
+    private static final int SWEEP_BATCH = 1000;
+    // Clients send the driver id as a native header on CONNECT
+    private static final String DRIVER_ID_HEADER = "driverId";
+
+    private final DriverPresenceStore presenceStore;
+    private final DriverLocationStore driverLocationStore;
+    private final ViewportRegistry viewportRegistry;
+    private final DriverStatusCounters driverStatusCounters;
+    private final long timeoutMs;
+    private final long sweepIntervalMs;
+
+    // STOMP sessions of drivers connected to this node
+    private final Map<String, String> driverBySession = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> sessionsByDriver = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "driver-presence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DriverPresenceTracker(DriverPresenceStore presenceStore, DriverLocationStore driverLocationStore,
+            ViewportRegistry viewportRegistry, DriverStatusCounters driverStatusCounters, DispatchProperties properties,
+            MeterRegistry meterRegistry) {
+        this.presenceStore = presenceStore;
+        this.driverLocationStore = driverLocationStore;
+        this.viewportRegistry = viewportRegistry;
+        this.driverStatusCounters = driverStatusCounters;
+        this.timeoutMs = properties.getPresence().getTimeoutMs();
+        this.sweepIntervalMs = properties.getPresence().getSweepIntervalMs();
+
+        Gauge.builder("drivers.presence", this, DriverPresenceTracker::countOnline)
+                .description("ACTIVE drivers by heartbeat state")
+                .tag("state", "online")
+                .register(meterRegistry);
+        Gauge.builder("drivers.presence", this, DriverPresenceTracker::countOffline)
+                .description("ACTIVE drivers by heartbeat state")
+                .tag("state", "offline")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Records a heartbeat. The session id may be null for pings that did not
+     * come over STOMP.
+     */
+    public void heartbeat(String driverId, String sessionId) {
+        if (driverId == null) {
+            return;
+        }
+        if (sessionId != null) {
+            bind(driverId, sessionId);
+        }
+        presenceStore.touch(driverId, System.currentTimeMillis());
+    }
+
+    /**
+     * Gives drivers loaded from the database one timeout to send their first
+     * heartbeat, without overwriting newer heartbeats.
+     */
+    public void seed(String driverId) {
+        presenceStore.touchIfAbsent(driverId, System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        heartbeat(accessor.getFirstNativeHeader(DRIVER_ID_HEADER), accessor.getSessionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String driverId = driverBySession.remove(event.getSessionId());
+        if (driverId == null) {
+            return;
+        }
+        if (unbind(driverId, event.getSessionId())) {
+            markOffline(driverId);
+            log.info("📍 [PRESENCE] Driver {} disconnected", driverId);
+        }
+    }
+
+    public boolean isOnline(String driverId) {
+        Long lastSeen = presenceStore.lastSeen(List.of(driverId)).get(driverId);
+        return lastSeen != null && lastSeen >= System.currentTimeMillis() - timeoutMs;
+    }
+
+    /**
+     * Drops drivers whose last heartbeat is older than the timeout, keeping the
+     * order of the input. Covers the gap until the next sweep.
+     */
+    public List<NearbyDriver> filterOnline(List<NearbyDriver> drivers) {
+        if (drivers.isEmpty()) {
+            return drivers;
+        }
+        Map<String, Long> lastSeen = presenceStore.lastSeen(
+                drivers.stream().map(NearbyDriver::getDriverId).collect(Collectors.toList()));
+        long cutoff = System.currentTimeMillis() - timeoutMs;
+        return drivers.stream()
+                .filter(driver -> {
+                    Long at = lastSeen.get(driver.getDriverId());
+                    return at != null && at >= cutoff;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Takes every driver silent since before {@code nowMs - timeout} out of the
+     * location store.
+     *
+     * @return number of drivers expired
+     */
+    public int sweep(long nowMs) {
+        int expired = 0;
+        List<String> driverIds;
+        do {
+            driverIds = presenceStore.expire(nowMs - timeoutMs, SWEEP_BATCH);
+            for (String driverId : driverIds) {
+                driverLocationStore.remove(driverId);
+                viewportRegistry.onDriverRemoved(driverId);
+            }
+            expired += driverIds.size();
+        } while (driverIds.size() == SWEEP_BATCH);
+        return expired;
+    }
+
+    public long countOnline() {
+        return presenceStore.countSeenSince(System.currentTimeMillis() - timeoutMs);
+    }
+
+    public long countOffline() {
+        return Math.max(0, driverStatusCounters.count(AccountStatus.ACTIVE) - countOnline());
+    }
+
+    private void bind(String driverId, String sessionId) {
+        String previous = driverBySession.put(sessionId, driverId);
+        if (driverId.equals(previous)) {
+            return;
+        }
+        sessionsByDriver.computeIfAbsent(driverId, id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+        if (previous != null && unbind(previous, sessionId)) {
+            // The session now speaks for another driver, as if the previous one disconnected
+            markOffline(previous);
+        }
+    }
+
+    /**
+     * @return true when it was the driver's last session
+     */
+    private boolean unbind(String driverId, String sessionId) {
+        return sessionsByDriver.computeIfPresent(driverId, (id, sessions) -> {
+            sessions.remove(sessionId);
+            return sessions.isEmpty() ? null : sessions;
+        }) == null;
+    }
+
+    private void markOffline(String driverId) {
+        presenceStore.remove(driverId);
+        driverLocationStore.remove(driverId);
+        viewportRegistry.onDriverRemoved(driverId);
+    }
+
+    private void sweepQuietly() {
+        try {
+            int expired = sweep(System.currentTimeMillis());
+            if (expired > 0) {
+                log.info("📍 [PRESENCE] Took {} silent drivers out of matching", expired);
+            }
+        } catch (Exception e) {
+            log.error("📍 [PRESENCE] Presence sweep failed", e);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 
 package com.mycompany.rideapp.service;
 
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.mycompany.rideapp.dto.DriverCandidate;
+import com.mycompany.rideapp.dto.DriverSearchQuery;
+import com.mycompany.rideapp.dto.NearbyDriver;
 import com.mycompany.rideapp.dto.request.DriverRequest;
 import com.mycompany.rideapp.dto.response.DriverResponse;
 import com.mycompany.rideapp.entity.Driver;
@@ -35,6 +45,14 @@ public class DriverService {
     ImageStorageService imageStorageService;
     DriverMapper driverMapper;
     NotificationService notificationService;
+    DriverLocationStore driverLocationStore;
+    DriverPositionBuffer driverPositionBuffer;
+    DriverStatusCounters driverStatusCounters;
+    DriverGeography driverGeography;
+    DriverPresenceTracker driverPresenceTracker;
+    DriverAvailabilityRegistry driverAvailabilityRegistry;
+    DriverSessionRegistry driverSessionRegistry;
+    ViewportRegistry viewportRegistry;
 
     public DriverResponse createDriver(DriverRequest request) {
         User user = userRepository.findById(request.getUserId())
@@ -50,6 +68,7 @@ public class DriverService {
 
         Driver driver = driverMapper.toEntity(request, user);
         driverRepository.save(driver);
+        driverStatusCounters.record(driver.getId(), driver.getDriverStatus(), Set.of());
 
         return driverMapper.toResponse(driver);
     }
@@ -78,7 +97,9 @@ public class DriverService {
         }
 
         DriverMapper.updateEntity(driver, request);
+        driverPositionBuffer.applyTo(driver);
         driverRepository.save(driver);
+        syncLocationIndex(driver);
 
         return driverMapper.toResponse(driver);
     }
@@ -91,7 +112,9 @@ public class DriverService {
 
         AccountStatus oldStatus = driver.getDriverStatus();
         driver.setDriverStatus(AccountStatus.valueOf(status));
+        driverPositionBuffer.applyTo(driver);
         driverRepository.save(driver);
+        syncLocationIndex(driver);
 
         log.info("📝 [STATUS] Driver {} status changed from {} to {}", id, oldStatus, status);
         log.info("📝 [STATUS] Driver location: lat={}, lng={}", driver.getLatitude(), driver.getLongitude());
@@ -127,49 +150,211 @@ public class DriverService {
             com.mycompany.rideapp.enums.VehicleType vehicleType) {
         log.info("🔍 [SEARCH] Searching for nearest drivers at ({}, {}) with vehicle type: {}", lat, lng, vehicleType);
 
-        // Debug: Check total drivers
-        long totalDrivers = driverRepository.count();
-        long activeDrivers = driverRepository.findByDriverStatus(AccountStatus.ACTIVE).size();
-        log.info("🔍 [SEARCH] Total drivers in DB: {}, Active drivers: {}", totalDrivers, activeDrivers);
+        log.info("🔍 [SEARCH] Active drivers: {}", driverStatusCounters.count(AccountStatus.ACTIVE));
 
-        List<Driver> drivers = driverRepository.findNearestDrivers(lat, lng,
-                org.springframework.data.domain.PageRequest.of(0, limit * 3));
-
-        log.info("🔍 [SEARCH] Found {} drivers from query (before vehicle type filter)", drivers.size());
-
-        List<DriverResponse> result = drivers.stream()
-                .filter(driver -> {
-                    boolean hasVehicle = hasVehicleType(driver, vehicleType);
-                    if (!hasVehicle) {
-                        log.debug("Driver {} filtered out - no matching vehicle type", driver.getId());
-                    }
-                    return hasVehicle;
-                })
+        DriverSearchQuery query = DriverSearchQuery.builder()
+                .latitude(lat)
+                .longitude(lng)
                 .limit(limit)
-                .map(driverMapper::toResponse)
-                .collect(Collectors.toList());
+                .vehicleType(vehicleType)
+                .build();
+        List<DriverResponse> result = getNearestDrivers(Map.of("", query)).get("");
 
         log.info("🔍 [SEARCH] Returning {} drivers after vehicle type filter", result.size());
 
         return result;
     }
 
-    private boolean hasVehicleType(Driver driver, com.mycompany.rideapp.enums.VehicleType vehicleType) {
-        if (driver.getVehicleRegister() == null || driver.getVehicleRegister().isEmpty()) {
-            return false;
+    /**
+     * Nearest-driver search for several rides at once. Each query is answered by
+     * the location store; everything the results render is then loaded for all
+     * queries in a single projection query, with the ACTIVE status and vehicle
+     * type filters applied in SQL. Results are keyed like the input map.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<DriverResponse>> getNearestDrivers(Map<String, DriverSearchQuery> queries) {
+        Map<String, List<String>> driverIdsByKey = new HashMap<>();
+        Set<String> allDriverIds = new HashSet<>();
+        Set<String> vehicleTypes = new HashSet<>();
+        queries.forEach((key, query) -> {
+            List<String> driverIds = findCandidateDrivers(query).stream()
+                    .map(NearbyDriver::getDriverId)
+                    .collect(Collectors.toList());
+            driverIdsByKey.put(key, driverIds);
+            allDriverIds.addAll(driverIds);
+            if (query.getVehicleType() != null) {
+                vehicleTypes.add(query.getVehicleType().name());
+            } else {
+                EnumSet.allOf(VehicleType.class).forEach(type -> vehicleTypes.add(type.name()));
+            }
+        });
+
+        log.info("🔍 [SEARCH] Found {} drivers from location store for {} searches", allDriverIds.size(),
+                queries.size());
+
+        // driver id -> vehicle type -> candidate row
+        Map<String, Map<String, DriverCandidate>> candidates = new HashMap<>();
+        if (!allDriverIds.isEmpty()) {
+            for (DriverCandidate candidate : driverRepository.findCandidates(allDriverIds, vehicleTypes)) {
+                candidates.computeIfAbsent(candidate.getDriverId(), id -> new HashMap<>())
+                        .putIfAbsent(candidate.getVehicleType(), candidate);
+            }
+        }
+
+        Map<String, DriverResponse> responses = new HashMap<>();
+        Map<String, List<DriverResponse>> result = new HashMap<>();
+        driverIdsByKey.forEach((key, driverIds) -> {
+            VehicleType vehicleType = queries.get(key).getVehicleType();
+            // Keep the store's nearest-first order
+            result.put(key, driverIds.stream()
+                    .map(driverId -> pickCandidate(candidates.get(driverId), vehicleType))
+                    .filter(candidate -> candidate != null)
+                    .map(candidate -> responses.computeIfAbsent(
+                            candidate.getDriverId() + ":" + candidate.getVehicleType(),
+                            id -> driverMapper.toResponse(candidate)))
+                    .collect(Collectors.toList()));
+        });
+        return result;
+    }
+
+    /**
+     * Nearest eligible drivers with their pickup distance, from the location
+     * store. Drivers without a recent heartbeat or a live session, holding an
+     * offer or on a trip are skipped. Only when nobody is within the store's
+     * search radius does it ask the database's spatial index.
+     */
+    public List<NearbyDriver> findCandidateDrivers(DriverSearchQuery query) {
+        // Ask for extra so skipped drivers do not shrink the result
+        List<NearbyDriver> nearest = driverLocationStore.findNearest(
+                query.getLatitude(), query.getLongitude(), query.getLimit() * 2, query.getVehicleType());
+        if (nearest.isEmpty() && driverGeography.isEnabled()) {
+            nearest = findNearestInDatabase(query, query.getLimit() * 2);
+        }
+        List<NearbyDriver> online = driverPresenceTracker.filterOnline(nearest);
+        return online.stream()
+                .filter(driver -> driverSessionRegistry.isReachable(driver.getDriverId()))
+                .filter(driver -> driverAvailabilityRegistry.isIdle(driver.getDriverId()))
+                .limit(query.getLimit())
+                .collect(Collectors.toList());
+    }
+
+    private List<NearbyDriver> findNearestInDatabase(DriverSearchQuery query, int limit) {
+        String vehicleType = query.getVehicleType() != null ? query.getVehicleType().name() : null;
+        return driverRepository.findNearestDrivers(query.getLatitude(), query.getLongitude(), limit, vehicleType)
+                .stream()
+                .map(row -> NearbyDriver.builder()
+                        .driverId((String) row[0])
+                        .latitude(((Number) row[1]).doubleValue())
+                        .longitude(((Number) row[2]).doubleValue())
+                        .distanceMeters(((Number) row[3]).doubleValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private DriverCandidate pickCandidate(Map<String, DriverCandidate> byType, VehicleType vehicleType) {
+        if (byType == null || byType.isEmpty()) {
+            return null;
         }
-        return driver.getVehicleRegister().stream()
-                .anyMatch(vehicle -> vehicle.getVehicleType().equals(vehicleType.name()) &&
-                        vehicle.getStatus() == com.mycompany.rideapp.enums.VehicleStatus.ACTIVE);
+        if (vehicleType == null) {
+            return byType.values().iterator().next();
+        }
+        return byType.get(vehicleType.name());
     }
 
     public void updateDriverPosition(String id, Double lat, Double lng) {
+        // Indexed drivers are known ACTIVE drivers, so the ping never touches the DB
+        if (driverLocationStore.move(id, lat, lng)) {
+            driverPositionBuffer.record(id, lat, lng);
+            viewportRegistry.onDriverMoved(id, lat, lng);
+            return;
+        }
+        // Known drivers that are not ACTIVE stay out of the index: only their row moves
+        AccountStatus status = driverStatusCounters.statusOf(id);
+        if (status != null && status != AccountStatus.ACTIVE) {
+            driverPositionBuffer.record(id, lat, lng);
+            return;
+        }
+
         Driver driver = driverRepository.findById(id)
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-        
+
+        driverPositionBuffer.record(id, lat, lng);
         driver.setLatitude(lat);
         driver.setLongitude(lng);
-        driverRepository.save(driver);
+        syncLocationIndex(driver);
+    }
+
+    /**
+     * Seeds the location index with every ACTIVE driver, and the status counters
+     * with every driver, once the app is up. After that both are kept current by
+     * position updates and status changes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadDriverLocationIndex() {
+        Map<String, Set<VehicleType>> vehicleTypes = new HashMap<>();
+        for (Object[] row : driverRepository.findActiveVehicleTypes()) {
+            VehicleType type = parseVehicleType((String) row[1]);
+            if (type != null) {
+                vehicleTypes.computeIfAbsent((String) row[0], id -> EnumSet.noneOf(VehicleType.class)).add(type);
+            }
+        }
+
+        Map<String, AccountStatus> statuses = new HashMap<>();
+        for (Object[] row : driverRepository.findDriverStatuses()) {
+            statuses.put((String) row[0], (AccountStatus) row[1]);
+        }
+        driverStatusCounters.reset(statuses, vehicleTypes);
+
+        // No clear(): with the Redis store the other nodes' live positions must survive a restart
+        for (Driver driver : driverRepository.findActiveDriversWithPosition()) {
+            driverLocationStore.seed(driver.getId(), driver.getLatitude(), driver.getLongitude(),
+                    vehicleTypes.get(driver.getId()));
+            driverPresenceTracker.seed(driver.getId());
+        }
+        log.info("📍 [INDEX] Loaded {} active drivers into location store", driverLocationStore.size());
+    }
+
+    /**
+     * Re-reads a driver's status, position and vehicles into the location index,
+     * e.g. after one of the driver's vehicles was added or changed status.
+     */
+    public void reindexDriver(String id) {
+        driverRepository.findById(id).ifPresent(driver -> {
+            driverPositionBuffer.applyTo(driver);
+            syncLocationIndex(driver);
+        });
+    }
+
+    private void syncLocationIndex(Driver driver) {
+        Set<VehicleType> types = EnumSet.noneOf(VehicleType.class);
+        if (driver.getDriverStatus() == AccountStatus.ACTIVE) {
+            for (String vehicleType : driverRepository.findActiveVehicleTypesByDriverId(driver.getId())) {
+                VehicleType type = parseVehicleType(vehicleType);
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+        }
+        driverStatusCounters.record(driver.getId(), driver.getDriverStatus(), types);
+
+        if (driver.getDriverStatus() == AccountStatus.ACTIVE
+                && driver.getLatitude() != null && driver.getLongitude() != null) {
+            driverLocationStore.upsert(driver.getId(), driver.getLatitude(), driver.getLongitude(), types);
+            viewportRegistry.onDriverMoved(driver.getId(), driver.getLatitude(), driver.getLongitude());
+        } else {
+            driverLocationStore.remove(driver.getId());
+            viewportRegistry.onDriverRemoved(driver.getId());
+        }
+    }
+
+    private VehicleType parseVehicleType(String vehicleType) {
+        try {
+            return vehicleType != null ? VehicleType.valueOf(vehicleType) : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown vehicle type {} ignored by location index", vehicleType);
+            return null;
+        }
     }
 
     public DriverResponse updateDriverPrefferedPosition(String id, Double lat, Double lng) {
@@ -197,12 +382,20 @@ public class DriverService {
         double latDelta = radiusInKm / 111.0;
         double lngDelta = radiusInKm / (111.0 * Math.cos(Math.toRadians(lat)));
 
-        double minLat = lat - latDelta;
-        double maxLat = lat + latDelta;
+        double minLat = Math.max(-90, lat - latDelta);
+        double maxLat = Math.min(90, lat + latDelta);
         double minLng = lng - lngDelta;
         double maxLng = lng + lngDelta;
+        if (minLng < -180 || maxLng > 180) {
+            // Crosses the antimeridian (or wraps the globe), take the whole band
+            minLng = -180;
+            maxLng = 180;
+        }
 
-        List<Driver> drivers = driverRepository.findDriversByLocationBounds(minLat, maxLat, minLng, maxLng);
+        boolean spatial = driverGeography.isEnabled() && DriverGeography.fitsPolygon(minLat, maxLat, minLng, maxLng);
+        List<Driver> drivers = spatial
+                ? driverRepository.findDriversInArea(DriverGeography.box(minLat, maxLat, minLng, maxLng))
+                : driverRepository.findDriversByLocationBounds(minLat, maxLat, minLng, maxLng);
 
         return drivers.stream()
                 .map(driverMapper::toResponse)
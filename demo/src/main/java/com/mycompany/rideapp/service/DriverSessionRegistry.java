@@ -0,0 +1,123 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * STOMP sessions subscribed to a driver's own topic ({@code /topic/driver/{id}})
+ * on this node, i.e. the drivers an offer can actually reach. Answers
+ * {@link #isConnected} in O(1) and exports the {@code drivers.connected}
+ * gauge. A subscription also counts as a presence heartbeat.
+ */
+@Component
+@Slf4j
+public class DriverSessionRegistry {
+    private static final String DRIVER_TOPIC_PREFIX = "/topic/driver/";
+
+    private final DriverPresenceTracker driverPresenceTracker;
+    private final boolean subscriptionRequired;
+
+    // session id -> subscription id -> driver id
+    private final Map<String, Map<String, String>> subscriptionsBySession = new ConcurrentHashMap<>();
+    // driver id -> live subscriptions to the driver's topic
+    private final Map<String, Integer> subscriptionCounts = new ConcurrentHashMap<>();
+
+    public DriverSessionRegistry(DriverPresenceTracker driverPresenceTracker, DispatchProperties properties,
+            MeterRegistry meterRegistry) {
+        this.driverPresenceTracker = driverPresenceTracker;
+        // With a shared broker the driver may be subscribed on another node, which this registry cannot see
+        this.subscriptionRequired = properties.getPresence().isRequireSubscription()
+                && "simple".equals(properties.getBroker().getMode());
+
+        Gauge.builder("drivers.connected", subscriptionCounts, Map::size)
+                .description("Drivers subscribed to their topic on this node")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String driverId = driverIdOf(accessor.getDestination());
+        if (driverId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String previous = subscriptionsBySession
+                .computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), driverId);
+        if (!driverId.equals(previous)) {
+            if (previous != null) {
+                release(previous);
+            }
+            subscriptionCounts.merge(driverId, 1, Integer::sum);
+        }
+        driverPresenceTracker.heartbeat(driverId, accessor.getSessionId());
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = accessor.getSessionId() != null
+                ? subscriptionsBySession.get(accessor.getSessionId())
+                : null;
+        String driverId = subscriptions != null && accessor.getSubscriptionId() != null
+                ? subscriptions.remove(accessor.getSubscriptionId())
+                : null;
+        if (driverId != null) {
+            release(driverId);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    public boolean isConnected(String driverId) {
+        return subscriptionCounts.containsKey(driverId);
+    }
+
+    /**
+     * Whether an offer sent to the driver now would be delivered. Always true
+     * when {@code app.dispatch.presence.require-subscription} is off or the
+     * broker is shared between nodes.
+     */
+    public boolean isReachable(String driverId) {
+        return !subscriptionRequired || isConnected(driverId);
+    }
+
+    public int connectedCount() {
+        return subscriptionCounts.size();
+    }
+
+    private void release(String driverId) {
+        subscriptionCounts.computeIfPresent(driverId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Driver id of {@code /topic/driver/{id}}; null for anything else, such
+     * as customers following {@code /topic/driver/{id}/updatePos}.
+     */
+    static String driverIdOf(String destination) {
+        if (destination == null || !destination.startsWith(DRIVER_TOPIC_PREFIX)) {
+            return null;
+        }
+        String driverId = destination.substring(DRIVER_TOPIC_PREFIX.length());
+        return driverId.isEmpty() || driverId.indexOf('/') >= 0 ? null : driverId;
+    }
+}
@@ -0,0 +1,112 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.enums.AccountStatus;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Live driver totals per account status, and ACTIVE drivers per vehicle type,
+ * kept up to date on every status or vehicle change instead of counting rows.
+ * Exported as the {@code drivers.status} and {@code drivers.active.vehicle.type}
+ * gauges. Seeded once at startup by DriverService.
+ */
+@Component
+public class DriverStatusCounters {
+    private final Map<AccountStatus, AtomicLong> byStatus = new EnumMap<>(AccountStatus.class);
+    private final Map<VehicleType, AtomicLong> activeByVehicleType = new EnumMap<>(VehicleType.class);
+
+    // Last recorded state per driver, to turn updates into +1/-1 transitions
+    private final Map<String, AccountStatus> statuses = new HashMap<>();
+    private final Map<String, Set<VehicleType>> activeTypes = new HashMap<>();
+
+    public DriverStatusCounters(MeterRegistry meterRegistry) {
+        for (AccountStatus status : AccountStatus.values()) {
+            AtomicLong counter = new AtomicLong();
+            byStatus.put(status, counter);
+            Gauge.builder("drivers.status", counter, AtomicLong::get)
+                    .description("Drivers per account status")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+        for (VehicleType type : VehicleType.values()) {
+            AtomicLong counter = new AtomicLong();
+            activeByVehicleType.put(type, counter);
+            Gauge.builder("drivers.active.vehicle.type", counter, AtomicLong::get)
+                    .description("ACTIVE drivers with an ACTIVE vehicle of this type")
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Records the current state of one driver.
+     *
+     * @param vehicleTypes types of the driver's ACTIVE vehicles
+     */
+    public synchronized void record(String driverId, AccountStatus status, Set<VehicleType> vehicleTypes) {
+        AccountStatus previous = status == null ? statuses.remove(driverId) : statuses.put(driverId, status);
+        if (previous != status) {
+            if (previous != null) {
+                byStatus.get(previous).decrementAndGet();
+            }
+            if (status != null) {
+                byStatus.get(status).incrementAndGet();
+            }
+        }
+
+        Set<VehicleType> current = status == AccountStatus.ACTIVE && vehicleTypes != null && !vehicleTypes.isEmpty()
+                ? EnumSet.copyOf(vehicleTypes)
+                : EnumSet.noneOf(VehicleType.class);
+        Set<VehicleType> before = current.isEmpty() ? activeTypes.remove(driverId)
+                : activeTypes.put(driverId, current);
+        if (before == null) {
+            before = Collections.emptySet();
+        }
+        for (VehicleType type : VehicleType.values()) {
+            if (before.contains(type) && !current.contains(type)) {
+                activeByVehicleType.get(type).decrementAndGet();
+            } else if (!before.contains(type) && current.contains(type)) {
+                activeByVehicleType.get(type).incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Replaces everything with a full snapshot.
+     */
+    public synchronized void reset(Map<String, AccountStatus> driverStatuses,
+            Map<String, Set<VehicleType>> driverVehicleTypes) {
+        statuses.clear();
+        activeTypes.clear();
+        byStatus.values().forEach(counter -> counter.set(0));
+        activeByVehicleType.values().forEach(counter -> counter.set(0));
+        driverStatuses.forEach((driverId, status) -> record(driverId, status, driverVehicleTypes.get(driverId)));
+    }
+
+    /**
+     * @return the driver's last recorded status, or null for a driver never recorded
+     */
+    public synchronized AccountStatus statusOf(String driverId) {
+        return statuses.get(driverId);
+    }
+
+    public long count(AccountStatus status) {
+        return byStatus.get(status).get();
+    }
+
+    public long countActive(VehicleType vehicleType) {
+        return activeByVehicleType.get(vehicleType).get();
+    }
+}
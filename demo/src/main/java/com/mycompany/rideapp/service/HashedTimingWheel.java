@@ -0,0 +1,113 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel: {@code wheelSize} buckets of {@code tickMs} each. Scheduling
+ * is O(1) from any thread; {@link #advance(long)} must only be called from a
+ * single ticking thread and returns every item that became due, so callers can
+ * process a whole tick as one batch.
+ */
+public class HashedTimingWheel<T> {
+    private final long tickMs;
+    private final long startMs;
+    private final int mask;
+    private final Queue<Timeout<T>>[] buckets;
+    private final Queue<Timeout<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // Last tick that was fully processed; only written by the ticking thread
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    public void schedule(T item, long delayMs, long nowMs) {
+        long deadlineTick = (nowMs + Math.max(0, delayMs) - startMs + tickMs - 1) / tickMs;
+        incoming.add(new Timeout<>(item, deadlineTick));
+        pending.incrementAndGet();
+    }
+
+    /**
+     * Processes every tick up to {@code nowMs} and returns the items that are due,
+     * in deadline order.
+     */
+    public List<T> advance(long nowMs) {
+        long targetTick = (nowMs - startMs) / tickMs;
+        if (targetTick <= currentTick) {
+            return Collections.emptyList();
+        }
+
+        List<T> due = new ArrayList<>();
+        while (currentTick < targetTick) {
+            long tick = currentTick + 1;
+            transferIncoming(tick);
+
+            Queue<Timeout<T>> bucket = buckets[(int) (tick & mask)];
+            int size = bucket.size();
+            for (int i = 0; i < size; i++) {
+                Timeout<T> timeout = bucket.poll();
+                if (timeout.deadlineTick <= tick) {
+                    due.add(timeout.item);
+                    pending.decrementAndGet();
+                } else {
+                    // Belongs to a later round of the wheel
+                    bucket.add(timeout);
+                }
+            }
+            currentTick = tick;
+        }
+        return due;
+    }
+
+    private void transferIncoming(long tick) {
+        Timeout<T> timeout;
+        while ((timeout = incoming.poll()) != null) {
+            long deadlineTick = Math.max(timeout.deadlineTick, tick);
+            buckets[(int) (deadlineTick & mask)].add(new Timeout<>(timeout.item, deadlineTick));
+        }
+    }
+
+    public int size() {
+        return pending.get();
+    }
+
+    /**
+     * How far the processed ticks are behind wall-clock time.
+     */
+    public long lagMs(long nowMs) {
+        return Math.max(0, nowMs - (startMs + currentTick * tickMs) - tickMs);
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    private static final class Timeout<T> {
+        final T item;
+        final long deadlineTick;
+
+        Timeout(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.dispatch.location-store", havingValue = "local", matchIfMissing = true)
+public class InMemoryDriverPresenceStore implements DriverPresenceStore {
+    private final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+
+    @Override
+    public void touch(String driverId, long nowMs) {
+        lastSeen.put(driverId, nowMs);
+    }
+
+    @Override
+    public void touchIfAbsent(String driverId, long nowMs) {
+        lastSeen.putIfAbsent(driverId, nowMs);
+    }
+
+    @Override
+    public void remove(String driverId) {
+        lastSeen.remove(driverId);
+    }
+
+    @Override
+    public Map<String, Long> lastSeen(Collection<String> driverIds) {
+        Map<String, Long> seen = new HashMap<>();
+        for (String driverId : driverIds) {
+            Long at = lastSeen.get(driverId);
+            if (at != null) {
+                seen.put(driverId, at);
+            }
+        }
+        return seen;
+    }
+
+    @Override
+    public List<String> expire(long beforeMs, int limit) {
+        List<String> expired = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : lastSeen.entrySet()) {
+            if (expired.size() >= limit) {
+                break;
+            }
+            // Conditional remove, a heartbeat that just arrived wins
+            if (entry.getValue() < beforeMs && lastSeen.remove(entry.getKey(), entry.getValue())) {
+                expired.add(entry.getKey());
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public long countSeenSince(long sinceMs) {
+        return lastSeen.values().stream().filter(at -> at >= sinceMs).count();
+    }
+}
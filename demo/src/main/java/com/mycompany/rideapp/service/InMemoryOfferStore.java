@@ -0,0 +1,136 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single node {@link OfferStore}, the default. Claims lapse on their TTL and
+ * are dropped when read after it or by the periodic {@link #evictExpired};
+ * offers are only ever expired by this node's own timing wheel, so their TTL
+ * is not needed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.pending-store", havingValue = "local", matchIfMissing = true)
+public class InMemoryOfferStore implements OfferStore {
+    private final Map<String, Claim> claims = new ConcurrentHashMap<>();
+    // ride request id -> driver id -> outstanding offer
+    private final Map<String, Map<String, Offer>> offersByRide = new ConcurrentHashMap<>();
+    private final Set<String> ackingDrivers = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean tryClaim(String driverId, String rideRequestId, long ttlMs) {
+        long now = System.currentTimeMillis();
+        Claim claimed = claims.compute(driverId, (id, current) -> current == null || !current.isLive(now)
+                || current.rideRequestId.equals(rideRequestId) ? new Claim(rideRequestId, now + ttlMs) : current);
+        return claimed.rideRequestId.equals(rideRequestId);
+    }
+
+    @Override
+    public String claimOf(String driverId) {
+        Claim claim = claims.get(driverId);
+        if (claim == null) {
+            return null;
+        }
+        if (!claim.isLive(System.currentTimeMillis())) {
+            claims.remove(driverId, claim);
+            return null;
+        }
+        return claim.rideRequestId;
+    }
+
+    @Override
+    public void releaseClaim(String driverId, String rideRequestId) {
+        claims.computeIfPresent(driverId,
+                (id, current) -> current.rideRequestId.equals(rideRequestId) ? null : current);
+    }
+
+    @Override
+    public void putOffer(String rideRequestId, String driverId, Offer offer, long ttlMs) {
+        offersByRide.computeIfAbsent(rideRequestId, id -> new ConcurrentHashMap<>()).put(driverId, offer);
+    }
+
+    @Override
+    public Offer getOffer(String rideRequestId, String driverId) {
+        Map<String, Offer> offers = offersByRide.get(rideRequestId);
+        return offers != null ? offers.get(driverId) : null;
+    }
+
+    @Override
+    public Offer markDelivered(String rideRequestId, String driverId) {
+        Map<String, Offer> offers = offersByRide.get(rideRequestId);
+        if (offers == null) {
+            return null;
+        }
+        Offer[] before = new Offer[1];
+        offers.computeIfPresent(driverId, (id, offer) -> {
+            before[0] = offer;
+            return offer.asDelivered();
+        });
+        return before[0];
+    }
+
+    @Override
+    public boolean removeOffer(String rideRequestId, String driverId, String offerId) {
+        boolean[] removed = new boolean[1];
+        offersByRide.computeIfPresent(rideRequestId, (id, offers) -> {
+            Offer offer = offers.get(driverId);
+            removed[0] = offer != null && offer.offerId().equals(offerId) && offers.remove(driverId, offer);
+            return offers.isEmpty() ? null : offers;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void removeOffer(String rideRequestId, String driverId) {
+        offersByRide.computeIfPresent(rideRequestId, (id, offers) -> {
+            offers.remove(driverId);
+            return offers.isEmpty() ? null : offers;
+        });
+    }
+
+    @Override
+    public void removeOffers(String rideRequestId) {
+        offersByRide.remove(rideRequestId);
+    }
+
+    @Override
+    public void markAcking(String driverId) {
+        ackingDrivers.add(driverId);
+    }
+
+    @Override
+    public boolean isAcking(String driverId) {
+        return ackingDrivers.contains(driverId);
+    }
+
+    @Override
+    public void evictExpired(long now) {
+        claims.values().removeIf(claim -> !claim.isLive(now));
+    }
+
+    public int claimCount() {
+        return claims.size();
+    }
+
+    public int offerCount() {
+        return offersByRide.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private static final class Claim {
+        private final String rideRequestId;
+        private final long expiresAt;
+
+        private Claim(String rideRequestId, long expiresAt) {
+            this.rideRequestId = rideRequestId;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isLive(long now) {
+            return expiresAt > now;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.dto.PendingRide;
+
+/**
+ * Single node {@link PendingRideStore}, the default. Rides live only in this
+ * node's memory, every retry tick is owned by the node's own timing wheel, so
+ * there are never overdue rides to recover and the lease is always granted.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.pending-store", havingValue = "local", matchIfMissing = true)
+public class InMemoryPendingRideStore implements PendingRideStore {
+    private final Map<String, PendingRide> pendingRides = new ConcurrentHashMap<>();
+
+    @Override
+    public void create(PendingRide pendingRide) {
+        pendingRides.put(pendingRide.getRideRequestId(), pendingRide);
+    }
+
+    @Override
+    public void update(PendingRide pendingRide) {
+        pendingRides.replace(pendingRide.getRideRequestId(), pendingRide);
+    }
+
+    @Override
+    public PendingRide get(String rideRequestId) {
+        return pendingRides.get(rideRequestId);
+    }
+
+    @Override
+    public PendingRide remove(String rideRequestId) {
+        return pendingRides.remove(rideRequestId);
+    }
+
+    @Override
+    public Collection<PendingRide> findAll() {
+        return pendingRides.values();
+    }
+
+    @Override
+    public int size() {
+        return pendingRides.size();
+    }
+
+    @Override
+    public boolean tryAccept(String rideRequestId) {
+        PendingRide pendingRide = pendingRides.get(rideRequestId);
+        return pendingRide != null && pendingRide.getAccepted().compareAndSet(false, true);
+    }
+
+    @Override
+    public void releaseAccept(String rideRequestId) {
+        PendingRide pendingRide = pendingRides.get(rideRequestId);
+        if (pendingRide != null) {
+            pendingRide.getAccepted().set(false);
+        }
+    }
+
+    @Override
+    public void scheduleDeadline(String rideRequestId, long dueAtMs) {
+    }
+
+    @Override
+    public List<String> findOverdue(long beforeMs, int limit) {
+        return List.of();
+    }
+
+    @Override
+    public boolean tryAcquireLease(String rideRequestId, long leaseMs) {
+        return true;
+    }
+}
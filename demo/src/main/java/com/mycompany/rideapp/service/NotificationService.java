@@ -1,26 +1,64 @@
 package com.mycompany.rideapp.service;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
-
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.config.DriverPositionMessageConverter;
+import com.mycompany.rideapp.dto.DriverPosition;
 import com.mycompany.rideapp.dto.RideNotification;
+import com.mycompany.rideapp.dto.event.DriverMapDelta;
+import com.mycompany.rideapp.dto.event.DriverPositionUpdate;
+import com.mycompany.rideapp.dto.event.NoDriverAvailable;
+import com.mycompany.rideapp.dto.event.RideAccepted;
+import com.mycompany.rideapp.dto.event.RideCancelled;
+import com.mycompany.rideapp.dto.event.RideCreated;
+import com.mycompany.rideapp.dto.event.RideRequestCancelled;
+import com.mycompany.rideapp.dto.event.RideStatusUpdate;
+import com.mycompany.rideapp.enums.RideRequestCancelReason;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Pushes ride events to the customer and driver topics. Payloads are typed
+ * records serialized once to JSON bytes with a writer cached per type, so an
+ * event sent to several drivers is encoded a single time.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
     private final SimpMessagingTemplate messagingTemplate;
-
-    public void sendRideRequestToDriver(String driverId, RideNotification notification) {
-        log.info("Sending ride request {} to driver {}", notification.getRideRequestId(), driverId);
-        messagingTemplate.convertAndSend("/topic/driver/" + driverId, notification);
+    private final DriverPositionBuffer driverPositionBuffer;
+    private final ObjectMapper objectMapper;
+    private final DispatchProperties dispatchProperties;
+
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Offers the same ride request to every driver in the list.
+     */
+    public void sendRideRequestToDrivers(Collection<String> driverIds, RideNotification notification) {
+        log.info("Sending ride request {} to drivers {}", notification.getRideRequestId(), driverIds);
+        byte[] payload = encode(notification);
+        for (String driverId : driverIds) {
+            send("/topic/driver/" + driverId, payload);
+        }
     }
 
     public void notifyCustomer(String customerId, Object message) {
@@ -30,108 +68,148 @@ public class NotificationService {
 
     public void notifyRideAccepted(String customerId, com.mycompany.rideapp.entity.Driver driver, String rideId) {
         log.info("Notifying customer {} that driver {} accepted ride {}", customerId, driver.getId(), rideId);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "RIDE_ACCEPTED");
-        payload.put("driverId", driver.getId());
-        payload.put("rideId", rideId);
-        payload.put("driverLat", driver.getLatitude());
-        payload.put("driverLng", driver.getLongitude());
-
-        // Add detailed driver info
-        payload.put("driverName", driver.getUser().getName());
-        payload.put("driverAvatar", driver.getAvatarUrl());
-        payload.put("driverRating", driver.getRating());
-        payload.put("driverPhone", driver.getUser().getPhoneNumber());
-
+        String vehicleModel = null;
+        String vehiclePlate = null;
         if (!driver.getVehicleRegister().isEmpty()) {
             var vehicle = driver.getVehicleRegister().get(0);
-            payload.put("vehicleModel", vehicle.getVehicleBrand() + " " + vehicle.getVehicleType());
-            payload.put("vehiclePlate", vehicle.getVehicleNumber());
+            vehicleModel = vehicle.getVehicleBrand() + " " + vehicle.getVehicleType();
+            vehiclePlate = vehicle.getVehicleNumber();
         }
 
-        messagingTemplate.convertAndSend("/topic/customer/" + customerId, (Object) payload);
+        send("/topic/customer/" + customerId, encode(new RideAccepted(
+                driver.getId(),
+                rideId,
+                latitudeOf(driver),
+                longitudeOf(driver),
+                driver.getUser().getName(),
+                driver.getAvatarUrl(),
+                driver.getRating(),
+                driver.getUser().getPhoneNumber(),
+                vehicleModel,
+                vehiclePlate)));
     }
 
     public void notifyNoDriverAvailable(String customerId, String rideRequestId) {
         log.warn("No driver available for ride request {}", rideRequestId);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "NO_DRIVER_AVAILABLE");
-        payload.put("rideRequestId", rideRequestId);
-        payload.put("message", "No available drivers found. Please try again later.");
-        messagingTemplate.convertAndSend("/topic/customer/" + customerId, (Object) payload);
+        send("/topic/customer/" + customerId, encode(new NoDriverAvailable(rideRequestId,
+                "No available drivers found. Please try again later.")));
     }
 
-    public void notifyDriverPositionUpdate(String driverId, Double lat, Double lng) {
-        log.info("Notifying driver {} with position update {} {}", driverId, lat, lng);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "DRIVER_POSITION_UPDATE");
-        payload.put("driverId", driverId);
-        payload.put("lat", lat);
-        payload.put("lng", lng);
-        messagingTemplate.convertAndSend("/topic/driver/" + driverId + "/updatePos", (Object) payload);
+    public void notifyDriverPositionUpdate(DriverPosition position) {
+        // Sent for every position message, keep it out of the info log
+        log.debug("Notifying driver {} with position update {} {}", position.getDriverId(), position.getLat(),
+                position.getLng());
+        String destination = "/topic/driver/" + position.getDriverId() + "/updatePos";
+        if (dispatchProperties.getPosition().isBinaryEcho()) {
+            send(destination, DriverPositionMessageConverter.encode(position),
+                    DriverPositionMessageConverter.POSITION_FRAME);
+        } else {
+            send(destination, encode(new DriverPositionUpdate(position.getDriverId(), position.getLat(),
+                    position.getLng())));
+        }
     }
 
     public void notifyRideStatusUpdate(String customerId, String rideId, com.mycompany.rideapp.enums.Status status,
             com.mycompany.rideapp.entity.Driver driver) {
         log.info("Notifying customer {} about ride {} status change to {}", customerId, rideId, status);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "RIDE_STATUS_UPDATE");
-        payload.put("rideId", rideId);
-        payload.put("status", status.toString());
-        payload.put("timestamp", System.currentTimeMillis());
 
         // Include driver position if available
-        if (driver != null) {
-            payload.put("driverId", driver.getId());
-            payload.put("driverLat", driver.getLatitude());
-            payload.put("driverLng", driver.getLongitude());
-        }
-
-        messagingTemplate.convertAndSend("/topic/customer/" + customerId, (Object) payload);
+        send("/topic/customer/" + customerId, encode(new RideStatusUpdate(
+                rideId,
+                status.toString(),
+                System.currentTimeMillis(),
+                driver != null ? driver.getId() : null,
+                driver != null ? latitudeOf(driver) : null,
+                driver != null ? longitudeOf(driver) : null)));
     }
 
     public void notifyRideCancellation(String customerId, String driverId, String rideId, String cancelledBy) {
         log.info("Notifying ride {} cancellation by {}", rideId, cancelledBy);
+        long timestamp = System.currentTimeMillis();
 
         // Notify customer
-        Map<String, Object> customerPayload = new HashMap<>();
-        customerPayload.put("type", "RIDE_CANCELLED");
-        customerPayload.put("rideId", rideId);
-        customerPayload.put("cancelledBy", cancelledBy);
-        customerPayload.put("message",
-                cancelledBy.equals("DRIVER") ? "Driver cancelled the ride" : "You cancelled the ride");
-        customerPayload.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend("/topic/customer/" + customerId, (Object) customerPayload);
+        send("/topic/customer/" + customerId, encode(new RideCancelled(rideId, cancelledBy,
+                cancelledBy.equals("DRIVER") ? "Driver cancelled the ride" : "You cancelled the ride", timestamp)));
 
         // Notify driver
-        Map<String, Object> driverPayload = new HashMap<>();
-        driverPayload.put("type", "RIDE_CANCELLED");
-        driverPayload.put("rideId", rideId);
-        driverPayload.put("cancelledBy", cancelledBy);
-        driverPayload.put("message",
-                cancelledBy.equals("CUSTOMER") ? "Customer cancelled the ride" : "You cancelled the ride");
-        driverPayload.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend("/topic/driver/" + driverId, (Object) driverPayload);
+        send("/topic/driver/" + driverId, encode(new RideCancelled(rideId, cancelledBy,
+                cancelledBy.equals("CUSTOMER") ? "Customer cancelled the ride" : "You cancelled the ride",
+                timestamp)));
     }
 
     public void notifyDriverRideCreated(String driverId, String rideId, String customerId) {
         log.info("Notifying driver {} about created ride {}", driverId, rideId);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "RIDE_CREATED");
-        payload.put("rideId", rideId);
-        payload.put("customerId", customerId);
-        payload.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend("/topic/driver/" + driverId, (Object) payload);
+        send("/topic/driver/" + driverId, encode(new RideCreated(rideId, customerId, System.currentTimeMillis())));
+    }
+
+    public void notifyDriverRideRequestCancelled(String driverId, String rideRequestId,
+            RideRequestCancelReason reason) {
+        notifyDriversRideRequestCancelled(List.of(driverId), rideRequestId, reason);
+    }
+
+    /**
+     * Tells every driver in the list that the ride request is gone for them,
+     * and why.
+     */
+    public void notifyDriversRideRequestCancelled(Collection<String> driverIds, String rideRequestId,
+            RideRequestCancelReason reason) {
+        if (driverIds.isEmpty()) {
+            return;
+        }
+        log.info("Notifying drivers {} that ride request {} is gone ({})", driverIds, rideRequestId, reason);
+        byte[] payload = encode(new RideRequestCancelled(rideRequestId, reason, cancelMessage(reason),
+                System.currentTimeMillis()));
+        for (String driverId : driverIds) {
+            send("/topic/driver/" + driverId, payload);
+        }
     }
 
-    public void notifyDriverRideRequestCancelled(String driverId, String rideRequestId) {
-        log.info("Notifying driver {} that ride request {} was already cancelled", driverId, rideRequestId);
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("type", "RIDE_REQUEST_CANCELLED");
-        payload.put("rideRequestId", rideRequestId);
-        payload.put("message", "This ride request has been cancelled by the customer");
-        payload.put("timestamp", System.currentTimeMillis());
-        messagingTemplate.convertAndSend("/topic/driver/" + driverId, (Object) payload);
+    private static String cancelMessage(RideRequestCancelReason reason) {
+        return switch (reason) {
+            case CANCELLED -> "This ride request has been cancelled by the customer";
+            case EXPIRED -> "This ride request expired before you answered";
+            case TAKEN -> "Another driver has already accepted this ride request";
+            case UNAVAILABLE -> "You cannot take this ride request while on a trip";
+            case CLOSED -> "This ride request is no longer open";
+        };
     }
 
+    public void notifyViewport(DriverMapDelta delta) {
+        send("/topic/map/" + delta.viewportId(), encode(delta));
+    }
+
+    byte[] encode(Object event) {
+        try {
+            return writers.computeIfAbsent(event.getClass(), objectMapper::writerFor).writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    private void send(String destination, byte[] payload) {
+        send(destination, payload, MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    // Already encoded, so the broker template skips its message converter
+    private void send(String destination, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Latest position from the write-behind buffer. Only read into the payload:
+     * the entity is managed on the accept path, and setting its coordinates
+     * would flush a full-row UPDATE past the buffer.
+     */
+    private Double latitudeOf(com.mycompany.rideapp.entity.Driver driver) {
+        DriverPositionBuffer.BufferedPosition position = driverPositionBuffer.get(driver.getId());
+        return position != null ? Double.valueOf(position.getLatitude()) : driver.getLatitude();
+    }
+
+    private Double longitudeOf(com.mycompany.rideapp.entity.Driver driver) {
+        DriverPositionBuffer.BufferedPosition position = driverPositionBuffer.get(driver.getId());
+        return position != null ? Double.valueOf(position.getLongitude()) : driver.getLongitude();
+    }
 }
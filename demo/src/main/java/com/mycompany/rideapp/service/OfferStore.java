@@ -0,0 +1,86 @@
+package com.mycompany.rideapp.service;
+
+/**
+ * Outstanding ride offers: which ride each driver is claimed for
+ * (DriverAvailabilityRegistry) and the offer behind each deadline
+ * (OfferTimeouts). Selected with {@code app.dispatch.pending-store} like the
+ * rides themselves: {@code local} keeps them in this node's memory,
+ * {@code redis} shares them, so an answer or ACK that lands on another node is
+ * seen by the node whose timing wheel holds the offer's deadlines.
+ */
+public interface OfferStore {
+
+    /**
+     * Claims the driver for an offer of the ride for {@code ttlMs}. Claiming
+     * again for the same ride succeeds and extends the claim.
+     *
+     * @return false when the driver holds a live claim for another ride
+     */
+    boolean tryClaim(String driverId, String rideRequestId, long ttlMs);
+
+    /**
+     * @return the ride the driver holds a live claim for, or null
+     */
+    String claimOf(String driverId);
+
+    /**
+     * Drops the driver's claim if it is for the ride.
+     */
+    void releaseClaim(String driverId, String rideRequestId);
+
+    /**
+     * Records a fresh offer, replacing any earlier offer of the same ride to
+     * the same driver. It is gone after {@code ttlMs} even if no node expires
+     * it.
+     */
+    void putOffer(String rideRequestId, String driverId, Offer offer, long ttlMs);
+
+    /**
+     * @return the outstanding offer, or null
+     */
+    Offer getOffer(String rideRequestId, String driverId);
+
+    /**
+     * Marks the offer delivered.
+     *
+     * @return the offer as it was before, or null when none is outstanding
+     */
+    Offer markDelivered(String rideRequestId, String driverId);
+
+    /**
+     * Removes the offer if it is still the one with {@code offerId}.
+     *
+     * @return false when it was answered, withdrawn or replaced in the meantime
+     */
+    boolean removeOffer(String rideRequestId, String driverId, String offerId);
+
+    /**
+     * Removes the offer whatever its id.
+     */
+    void removeOffer(String rideRequestId, String driverId);
+
+    /**
+     * Removes every offer of the ride.
+     */
+    void removeOffers(String rideRequestId);
+
+    /**
+     * Remembers that the driver's client sends ACKs.
+     */
+    void markAcking(String driverId);
+
+    boolean isAcking(String driverId);
+
+    /**
+     * Drops claims whose TTL ran out before {@code now}, for stores that do
+     * not expire them on their own.
+     */
+    void evictExpired(long now);
+
+    record Offer(String offerId, long sentAt, boolean delivered) {
+
+        Offer asDelivered() {
+            return new Offer(offerId, sentAt, true);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.service.OfferStore.Offer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-offer deadlines on a fine-grained timing wheel of their own. Every offer
+ * must be answered within {@code app.dispatch.offer.decision-timeout-ms}, and
+ * acknowledged by the client within {@code delivery-timeout-ms} when the
+ * driver's client is known to send ACKs (or ACKs are required). Expired offers
+ * are handed to the handler right away instead of waiting for the ride's next
+ * retry tick.
+ * <p>
+ * The offers themselves live in the {@link OfferStore}; only the wheel is
+ * local. A check that comes due on this node looks the offer up there, so an
+ * answer or ACK received by another node still stops it. Should this node
+ * die, its offers lapse in the store a grace period after their decision
+ * deadline and the ride's retry tick, taken over by another node, moves on.
+ */
+@Component
+@Slf4j
+public class OfferTimeouts {
+    public enum Reason {
+        DELIVERY,
+        DECISION
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void onTimeout(String rideRequestId, String driverId, Reason reason);
+    }
+
+    private final OfferStore offerStore;
+    private final HashedTimingWheel<Check> wheel;
+    private final boolean ackRequired;
+    private final long deliveryTimeoutMs;
+    private final long decisionTimeoutMs;
+    private final long offerTtlMs;
+
+    private final Counter deliveryTimeouts;
+    private final Counter decisionTimeouts;
+    private final Timer ackLatency;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "offer-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Handler handler = (rideRequestId, driverId, reason) -> {
+    };
+
+    public OfferTimeouts(OfferStore offerStore, DispatchProperties properties, MeterRegistry meterRegistry) {
+        DispatchProperties.Offer config = properties.getOffer();
+        this.offerStore = offerStore;
+        this.ackRequired = config.isAckRequired();
+        this.deliveryTimeoutMs = config.getDeliveryTimeoutMs();
+        this.decisionTimeoutMs = config.getDecisionTimeoutMs();
+        this.offerTtlMs = decisionTimeoutMs + properties.getScheduler().getOrphanGraceMs();
+        int wheelSize = (int) Math.min(4096, decisionTimeoutMs / config.getTickMs() + 1);
+        this.wheel = new HashedTimingWheel<>(config.getTickMs(), wheelSize, System.currentTimeMillis());
+
+        this.deliveryTimeouts = Counter.builder("dispatch.offer.timeouts")
+                .description("Offers that expired before the driver acted")
+                .tag("reason", Reason.DELIVERY.name())
+                .register(meterRegistry);
+        this.decisionTimeouts = Counter.builder("dispatch.offer.timeouts")
+                .description("Offers that expired before the driver acted")
+                .tag("reason", Reason.DECISION.name())
+                .register(meterRegistry);
+        this.ackLatency = Timer.builder("dispatch.offer.ack.latency")
+                .description("Time from sending an offer to the client's ACK")
+                .register(meterRegistry);
+    }
+
+    public void setHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleAtFixedRate(() -> tick(System.currentTimeMillis()), wheel.getTickMs(), wheel.getTickMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    /**
+     * Starts both deadlines of a fresh offer, replacing any earlier offer of
+     * the same ride to the same driver.
+     */
+    public void track(String rideRequestId, String driverId) {
+        long now = System.currentTimeMillis();
+        String offerId = UUID.randomUUID().toString();
+        offerStore.putOffer(rideRequestId, driverId, new Offer(offerId, now, false), offerTtlMs);
+        if (ackRequired || offerStore.isAcking(driverId)) {
+            wheel.schedule(new Check(rideRequestId, driverId, offerId, Reason.DELIVERY), deliveryTimeoutMs, now);
+        }
+        wheel.schedule(new Check(rideRequestId, driverId, offerId, Reason.DECISION), decisionTimeoutMs, now);
+    }
+
+    /**
+     * Records the client's ACK. Later offers to this driver get a delivery
+     * deadline too.
+     *
+     * @return false when no such offer is outstanding
+     */
+    public boolean acknowledge(String rideRequestId, String driverId) {
+        offerStore.markAcking(driverId);
+        Offer offer = offerStore.markDelivered(rideRequestId, driverId);
+        if (offer == null) {
+            return false;
+        }
+        if (!offer.delivered()) {
+            ackLatency.record(System.currentTimeMillis() - offer.sentAt(), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * True while the offer is outstanding, i.e. some node will still expire it.
+     */
+    public boolean isPending(String rideRequestId, String driverId) {
+        return offerStore.getOffer(rideRequestId, driverId) != null;
+    }
+
+    /**
+     * The driver answered or the offer was withdrawn.
+     */
+    public void resolve(String rideRequestId, String driverId) {
+        offerStore.removeOffer(rideRequestId, driverId);
+    }
+
+    /**
+     * The ride was matched, cancelled or given up; all its offers are moot.
+     */
+    public void forget(String rideRequestId) {
+        offerStore.removeOffers(rideRequestId);
+    }
+
+    void tick(long nowMs) {
+        try {
+            List<Check> due = wheel.advance(nowMs);
+            for (Check check : due) {
+                if (expire(check)) {
+                    (check.reason == Reason.DELIVERY ? deliveryTimeouts : decisionTimeouts).increment();
+                    handler.onTimeout(check.rideRequestId, check.driverId, check.reason);
+                }
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the fixed-rate ticker
+            log.error("[DISPATCH] Offer timeout tick failed", e);
+        }
+    }
+
+    /**
+     * Drops the offer if this check still applies to it.
+     */
+    private boolean expire(Check check) {
+        Offer offer = offerStore.getOffer(check.rideRequestId, check.driverId);
+        if (offer == null || !offer.offerId().equals(check.offerId)
+                || (check.reason == Reason.DELIVERY && offer.delivered())) {
+            return false;
+        }
+        return offerStore.removeOffer(check.rideRequestId, check.driverId, check.offerId);
+    }
+
+    private static final class Check {
+        private final String rideRequestId;
+        private final String driverId;
+        private final String offerId;
+        private final Reason reason;
+
+        private Check(String rideRequestId, String driverId, String offerId, Reason reason) {
+            this.rideRequestId = rideRequestId;
+            this.driverId = driverId;
+            this.offerId = offerId;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.mycompany.rideapp.dto.PendingRide;
+
+/**
+ * Ride requests that are still looking for a driver. Selected with
+ * {@code app.dispatch.pending-store}: {@code local} keeps them in this node's
+ * memory, {@code redis} shares them so they survive restarts and any node can
+ * answer a driver response or take over the retry tick of a dead node.
+ */
+public interface PendingRideStore {
+
+    void create(PendingRide pendingRide);
+
+    /**
+     * Writes back the dispatch state of a ride. Ignored when the ride has been
+     * removed in the meantime (accepted, cancelled or given up), so a late write
+     * never brings it back. The accepted flag is only changed by
+     * {@link #tryAccept}/{@link #releaseAccept}.
+     */
+    void update(PendingRide pendingRide);
+
+    PendingRide get(String rideRequestId);
+
+    PendingRide remove(String rideRequestId);
+
+    Collection<PendingRide> findAll();
+
+    int size();
+
+    /**
+     * Atomically claims the ride for one driver. Only the first caller wins.
+     */
+    boolean tryAccept(String rideRequestId);
+
+    /**
+     * Undoes {@link #tryAccept} when creating the ride failed.
+     */
+    void releaseAccept(String rideRequestId);
+
+    /**
+     * Records when the next retry tick of the ride is due.
+     */
+    void scheduleDeadline(String rideRequestId, long dueAtMs);
+
+    /**
+     * Rides whose retry tick was due before {@code beforeMs} and never ran,
+     * i.e. the node that owned them is gone.
+     */
+    List<String> findOverdue(long beforeMs, int limit);
+
+    /**
+     * Takes ownership of the ride's current retry tick for {@code leaseMs} so
+     * that only one node processes it.
+     */
+    boolean tryAcquireLease(String rideRequestId, long leaseMs);
+}
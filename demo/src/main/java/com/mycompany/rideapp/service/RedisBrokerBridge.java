@@ -0,0 +1,135 @@
+package com.mycompany.rideapp.service;
+
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lets several nodes share the in-memory STOMP broker. Every message the
+ * application sends to the broker channel is delivered locally as before and
+ * also published on the {@code ws:broker} Redis channel; the other nodes hand
+ * it to their own simple broker, so a subscriber gets it whichever node its
+ * session is on. Only created with {@code app.dispatch.broker.mode=redis}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.broker.mode", havingValue = "redis")
+@Slf4j
+public class RedisBrokerBridge implements ChannelInterceptor {
+    private static final ChannelTopic TOPIC = new ChannelTopic("ws:broker");
+    // Marks messages that came in from another node so they are not published again
+    static final String RELAYED_HEADER = "relayedFrom";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter published;
+    private final Counter received;
+
+    public RedisBrokerBridge(StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory,
+            ObjectMapper objectMapper, @Lazy SimpMessageSendingOperations messagingTemplate,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.messagingTemplate = messagingTemplate;
+        this.container.setConnectionFactory(connectionFactory);
+        this.published = Counter.builder("websocket.bridge.messages")
+                .description("Broker messages exchanged with other nodes")
+                .tag("direction", "out")
+                .register(meterRegistry);
+        this.received = Counter.builder("websocket.bridge.messages")
+                .description("Broker messages exchanged with other nodes")
+                .tag("direction", "in")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE || destination == null
+                || headers.containsKey(RELAYED_HEADER) || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        try {
+            Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+            String envelope = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                    .put("origin", nodeId)
+                    .put("destination", destination)
+                    .put("contentType", contentType != null ? contentType.toString() : null)
+                    .put("payload", payload));
+            redisTemplate.convertAndSend(TOPIC.getTopic(), envelope);
+            published.increment();
+        } catch (Exception e) {
+            log.warn("[BROKER_BRIDGE] Could not publish message to {}", destination, e);
+        }
+        // Local subscribers are served by this node's broker as usual
+        return message;
+    }
+
+    /**
+     * Hands a message published by another node to the local broker. Messages
+     * this node published itself are ignored.
+     */
+    void deliver(byte[] body) {
+        try {
+            JsonNode envelope = objectMapper.readTree(body);
+            String origin = envelope.path("origin").asText();
+            if (nodeId.equals(origin)) {
+                return;
+            }
+            String destination = envelope.path("destination").asText();
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            if (envelope.hasNonNull("contentType")) {
+                accessor.setContentType(MimeType.valueOf(envelope.get("contentType").asText()));
+            }
+            accessor.setHeader(RELAYED_HEADER, origin);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.send(destination,
+                    MessageBuilder.createMessage(envelope.get("payload").binaryValue(), accessor.getMessageHeaders()));
+            received.increment();
+        } catch (Exception e) {
+            log.warn("[BROKER_BRIDGE] Dropped malformed broker message", e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        container.addMessageListener((message, pattern) -> deliver(message.getBody()), TOPIC);
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        container.stop();
+        container.destroy();
+    }
+}
@@ -0,0 +1,225 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoLocation;
+import org.springframework.data.redis.connection.RedisGeoCommands.GeoSearchCommandArgs;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.domain.geo.BoundingBox;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.VehicleType;
+
+/**
+ * Redis GEO backed {@link DriverLocationStore}. Every vehicle type has its own
+ * GEO set ({@code drivers:geo:CAR}, ...), and {@code drivers:types} remembers
+ * which sets a driver belongs to so a position ping is a single GEOADD per type.
+ * Writes run as Lua scripts, so the types entry and the GEO sets always change
+ * together.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.location-store", havingValue = "redis")
+public class RedisDriverLocationStore implements DriverLocationStore {
+    private static final String GEO_KEY_PREFIX = "drivers:geo:";
+    private static final String TYPES_KEY = "drivers:types";
+    private static final double KM_PER_DEGREE = 111.32;
+
+    // Every write is one script, so a remove on one node can never interleave with
+    // a move on another and leave a GEO member behind without a drivers:types entry.
+    // ARGV: id, lng, lat, type list, then 1/0 per GEO set
+    private static final String UPSERT_BODY = "for i = 2, #KEYS do "
+            + "if ARGV[i + 3] == '1' then redis.call('GEOADD', KEYS[i], ARGV[2], ARGV[3], ARGV[1]) "
+            + "else redis.call('ZREM', KEYS[i], ARGV[1]) end end "
+            + "redis.call('HSET', KEYS[1], ARGV[1], ARGV[4]) "
+            + "return 1";
+    private static final RedisScript<Long> UPSERT = new DefaultRedisScript<>(UPSERT_BODY, Long.class);
+    // Same arguments as UPSERT, but a driver some node already writes is left alone
+    private static final RedisScript<Long> SEED = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then return 0 end " + UPSERT_BODY,
+            Long.class);
+    // ARGV: id, lng, lat, then the type name of every GEO set
+    private static final RedisScript<Long> MOVE = new DefaultRedisScript<>(
+            "local types = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if not types then return 0 end "
+                    + "types = ',' .. types .. ',' "
+                    + "for i = 2, #KEYS do "
+                    + "if string.find(types, ',' .. ARGV[i + 2] .. ',', 1, true) then "
+                    + "redis.call('GEOADD', KEYS[i], ARGV[2], ARGV[3], ARGV[1]) end end "
+                    + "return 1",
+            Long.class);
+    // Clears every GEO set, not only the recorded types, so stale members go too
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+            "for i = 2, #KEYS do redis.call('ZREM', KEYS[i], ARGV[1]) end "
+                    + "return redis.call('HDEL', KEYS[1], ARGV[1])",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Distance searchRadius;
+
+    public RedisDriverLocationStore(StringRedisTemplate redisTemplate, DispatchProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.searchRadius = new Distance(properties.getIndex().getMaxSearchRadiusKm(), Metrics.KILOMETERS);
+    }
+
+    @Override
+    public void upsert(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes) {
+        redisTemplate.execute(UPSERT, keys(), upsertArgs(driverId, lat, lng, vehicleTypes));
+    }
+
+    @Override
+    public void seed(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes) {
+        redisTemplate.execute(SEED, keys(), upsertArgs(driverId, lat, lng, vehicleTypes));
+    }
+
+    @Override
+    public boolean move(String driverId, double lat, double lng) {
+        List<String> args = new ArrayList<>(List.of(driverId, String.valueOf(lng), String.valueOf(lat)));
+        for (VehicleType type : VehicleType.values()) {
+            args.add(type.name());
+        }
+        Long moved = redisTemplate.execute(MOVE, keys(), args.toArray());
+        return moved != null && moved == 1L;
+    }
+
+    @Override
+    public void remove(String driverId) {
+        redisTemplate.execute(REMOVE, keys(), driverId);
+    }
+
+    @Override
+    public boolean contains(String driverId) {
+        return redisTemplate.opsForHash().hasKey(TYPES_KEY, driverId);
+    }
+
+    @Override
+    public int size() {
+        return redisTemplate.opsForHash().size(TYPES_KEY).intValue();
+    }
+
+    @Override
+    public void clear() {
+        redisTemplate.delete(keys());
+    }
+
+    @Override
+    public List<NearbyDriver> findNearest(double lat, double lng, int limit, VehicleType vehicleType) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        return search(lat, lng, searchRadius, limit, vehicleType);
+    }
+
+    @Override
+    public List<NearbyDriver> findInBox(double minLat, double maxLat, double minLng, double maxLng, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        double centerLat = (minLat + maxLat) / 2;
+        double centerLng = (minLng + maxLng) / 2;
+        // Width at the edge closest to the equator, so the box never comes out too narrow
+        double widestLat = minLat <= 0 && maxLat >= 0 ? 0 : Math.min(Math.abs(minLat), Math.abs(maxLat));
+        BoundingBox box = new BoundingBox(
+                (maxLng - minLng) * KM_PER_DEGREE * Math.cos(Math.toRadians(widestLat)),
+                (maxLat - minLat) * KM_PER_DEGREE,
+                Metrics.KILOMETERS);
+        GeoSearchCommandArgs args = GeoSearchCommandArgs.newGeoSearchArgs()
+                .includeCoordinates()
+                .includeDistance()
+                .limit(limit);
+
+        Map<String, NearbyDriver> result = new LinkedHashMap<>();
+        for (VehicleType type : VehicleType.values()) {
+            GeoResults<GeoLocation<String>> hits = redisTemplate.opsForGeo().search(geoKey(type),
+                    GeoReference.fromCoordinate(centerLng, centerLat), box, args);
+            if (hits == null) {
+                continue;
+            }
+            for (GeoResult<GeoLocation<String>> hit : hits) {
+                Point point = hit.getContent().getPoint();
+                if (point.getY() < minLat || point.getY() > maxLat || point.getX() < minLng || point.getX() > maxLng
+                        || result.size() >= limit) {
+                    continue;
+                }
+                result.putIfAbsent(hit.getContent().getName(), new NearbyDriver(hit.getContent().getName(),
+                        point.getY(), point.getX(), hit.getDistance().in(Metrics.KILOMETERS).getValue() * 1000));
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    private List<NearbyDriver> search(double lat, double lng, Distance radius, int limit, VehicleType vehicleType) {
+        Set<VehicleType> partitions = vehicleType != null ? EnumSet.of(vehicleType) : EnumSet.allOf(VehicleType.class);
+        GeoSearchCommandArgs args = GeoSearchCommandArgs.newGeoSearchArgs()
+                .includeCoordinates()
+                .includeDistance()
+                .sortAscending()
+                .limit(limit);
+
+        List<NearbyDriver> result = new ArrayList<>();
+        for (VehicleType type : partitions) {
+            GeoResults<GeoLocation<String>> hits = redisTemplate.opsForGeo().search(geoKey(type),
+                    GeoReference.fromCoordinate(lng, lat), radius, args);
+            if (hits == null) {
+                continue;
+            }
+            for (GeoResult<GeoLocation<String>> hit : hits) {
+                Point point = hit.getContent().getPoint();
+                result.add(new NearbyDriver(hit.getContent().getName(), point.getY(), point.getX(),
+                        hit.getDistance().in(Metrics.KILOMETERS).getValue() * 1000));
+            }
+        }
+
+        // A driver registered for several types shows up once per partition
+        return result.stream()
+                .collect(Collectors.toMap(NearbyDriver::getDriverId, driver -> driver, (a, b) -> a))
+                .values().stream()
+                .sorted(Comparator.comparingDouble(NearbyDriver::getDistanceMeters))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private Object[] upsertArgs(String driverId, double lat, double lng, Set<VehicleType> vehicleTypes) {
+        Set<VehicleType> current = vehicleTypes == null || vehicleTypes.isEmpty()
+                ? EnumSet.noneOf(VehicleType.class)
+                : EnumSet.copyOf(vehicleTypes);
+        List<String> args = new ArrayList<>(List.of(driverId, String.valueOf(lng), String.valueOf(lat),
+                current.stream().map(Enum::name).collect(Collectors.joining(","))));
+        for (VehicleType type : VehicleType.values()) {
+            args.add(current.contains(type) ? "1" : "0");
+        }
+        return args.toArray();
+    }
+
+    // KEYS[1] is drivers:types, then one GEO set per vehicle type in declaration order
+    private List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        keys.add(TYPES_KEY);
+        for (VehicleType type : VehicleType.values()) {
+            keys.add(geoKey(type));
+        }
+        return keys;
+    }
+
+    private String geoKey(VehicleType type) {
+        return GEO_KEY_PREFIX + type.name();
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis backed {@link DriverPresenceStore}: one sorted set
+ * ({@code drivers:presence}) scored by last heartbeat.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.location-store", havingValue = "redis")
+public class RedisDriverPresenceStore implements DriverPresenceStore {
+    private static final String PRESENCE_KEY = "drivers:presence";
+
+    // Range and removal in one step, so a heartbeat in between is never lost
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> EXPIRE = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[1], 'LIMIT', 0, ARGV[2]) "
+                    + "if #ids > 0 then redis.call('ZREM', KEYS[1], unpack(ids)) end "
+                    + "return ids",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisDriverPresenceStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void touch(String driverId, long nowMs) {
+        redisTemplate.opsForZSet().add(PRESENCE_KEY, driverId, nowMs);
+    }
+
+    @Override
+    public void touchIfAbsent(String driverId, long nowMs) {
+        redisTemplate.opsForZSet().addIfAbsent(PRESENCE_KEY, driverId, nowMs);
+    }
+
+    @Override
+    public void remove(String driverId) {
+        redisTemplate.opsForZSet().remove(PRESENCE_KEY, driverId);
+    }
+
+    @Override
+    public Map<String, Long> lastSeen(Collection<String> driverIds) {
+        Map<String, Long> seen = new HashMap<>();
+        if (driverIds.isEmpty()) {
+            return seen;
+        }
+        List<String> ids = new ArrayList<>(driverIds);
+        List<Double> scores = redisTemplate.opsForZSet().score(PRESENCE_KEY, ids.toArray());
+        if (scores == null) {
+            return seen;
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            if (scores.get(i) != null) {
+                seen.put(ids.get(i), scores.get(i).longValue());
+            }
+        }
+        return seen;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> expire(long beforeMs, int limit) {
+        List<String> ids = redisTemplate.execute(EXPIRE, List.of(PRESENCE_KEY), String.valueOf(beforeMs),
+                String.valueOf(limit));
+        return ids == null ? List.of() : ids;
+    }
+
+    @Override
+    public long countSeenSince(long sinceMs) {
+        Long count = redisTemplate.opsForZSet().count(PRESENCE_KEY, sinceMs, Double.POSITIVE_INFINITY);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,146 @@
+package com.mycompany.rideapp.service;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis backed {@link OfferStore} for running several nodes. A driver's claim
+ * is {@code offer:claim:{driverId}} holding the ride id with a PX TTL; the
+ * offers of a ride are one hash ({@code offer:ride:{id}}, driver id to
+ * {@code offerId|sentAt|expiresAt|delivered}) that expires with its latest
+ * offer. Entries past their expiresAt count as gone, so a ride whose later
+ * offers keep the hash alive never reports an old offer as outstanding.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.pending-store", havingValue = "redis")
+public class RedisOfferStore implements OfferStore {
+    private static final String CLAIM_KEY_PREFIX = "offer:claim:";
+    private static final String RIDE_KEY_PREFIX = "offer:ride:";
+    private static final String ACKING_KEY = "offer:acking";
+
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "if current and current ~= ARGV[1] then return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "return 1",
+            Long.class);
+    private static final RedisScript<Long> RELEASE_CLAIM = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0",
+            Long.class);
+    // Only ever extends the hash's TTL, an earlier offer of the ride may outlive this one
+    private static final RedisScript<Long> PUT_OFFER = new DefaultRedisScript<>(
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[3]) then "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) end "
+                    + "return 1",
+            Long.class);
+    private static final RedisScript<String> MARK_DELIVERED = new DefaultRedisScript<>(
+            "local offer = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if not offer then return false end "
+                    + "redis.call('HSET', KEYS[1], ARGV[1], string.sub(offer, 1, -2) .. '1') "
+                    + "return offer",
+            String.class);
+    private static final RedisScript<Long> REMOVE_OFFER_IF = new DefaultRedisScript<>(
+            "local offer = redis.call('HGET', KEYS[1], ARGV[1]) "
+                    + "if offer and string.sub(offer, 1, string.len(ARGV[2]) + 1) == ARGV[2] .. '|' then "
+                    + "return redis.call('HDEL', KEYS[1], ARGV[1]) end "
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisOfferStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public boolean tryClaim(String driverId, String rideRequestId, long ttlMs) {
+        Long claimed = redisTemplate.execute(CLAIM, List.of(claimKey(driverId)), rideRequestId,
+                String.valueOf(ttlMs));
+        return claimed != null && claimed == 1L;
+    }
+
+    @Override
+    public String claimOf(String driverId) {
+        return redisTemplate.opsForValue().get(claimKey(driverId));
+    }
+
+    @Override
+    public void releaseClaim(String driverId, String rideRequestId) {
+        redisTemplate.execute(RELEASE_CLAIM, List.of(claimKey(driverId)), rideRequestId);
+    }
+
+    @Override
+    public void putOffer(String rideRequestId, String driverId, Offer offer, long ttlMs) {
+        String value = offer.offerId() + "|" + offer.sentAt() + "|" + (System.currentTimeMillis() + ttlMs) + "|"
+                + (offer.delivered() ? "1" : "0");
+        redisTemplate.execute(PUT_OFFER, List.of(rideKey(rideRequestId)), driverId, value, String.valueOf(ttlMs));
+    }
+
+    @Override
+    public Offer getOffer(String rideRequestId, String driverId) {
+        Object value = redisTemplate.opsForHash().get(rideKey(rideRequestId), driverId);
+        return decode((String) value);
+    }
+
+    @Override
+    public Offer markDelivered(String rideRequestId, String driverId) {
+        return decode(redisTemplate.execute(MARK_DELIVERED, List.of(rideKey(rideRequestId)), driverId));
+    }
+
+    @Override
+    public boolean removeOffer(String rideRequestId, String driverId, String offerId) {
+        Long removed = redisTemplate.execute(REMOVE_OFFER_IF, List.of(rideKey(rideRequestId)), driverId, offerId);
+        return removed != null && removed == 1L;
+    }
+
+    @Override
+    public void removeOffer(String rideRequestId, String driverId) {
+        redisTemplate.opsForHash().delete(rideKey(rideRequestId), driverId);
+    }
+
+    @Override
+    public void removeOffers(String rideRequestId) {
+        redisTemplate.delete(rideKey(rideRequestId));
+    }
+
+    @Override
+    public void markAcking(String driverId) {
+        redisTemplate.opsForSet().add(ACKING_KEY, driverId);
+    }
+
+    @Override
+    public boolean isAcking(String driverId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(ACKING_KEY, driverId));
+    }
+
+    @Override
+    public void evictExpired(long now) {
+        // Claims carry a PX TTL, Redis drops them itself
+    }
+
+    private static Offer decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\|");
+        if (Long.parseLong(parts[2]) <= System.currentTimeMillis()) {
+            return null;
+        }
+        return new Offer(parts[0], Long.parseLong(parts[1]), "1".equals(parts[3]));
+    }
+
+    private static String claimKey(String driverId) {
+        return CLAIM_KEY_PREFIX + driverId;
+    }
+
+    private static String rideKey(String rideRequestId) {
+        return RIDE_KEY_PREFIX + rideRequestId;
+    }
+}
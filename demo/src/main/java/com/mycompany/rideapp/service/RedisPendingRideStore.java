@@ -0,0 +1,270 @@
+package com.mycompany.rideapp.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.PendingRide;
+import com.mycompany.rideapp.dto.request.RideRequest;
+
+/**
+ * Redis backed {@link PendingRideStore} for running several nodes. Every ride
+ * is a hash ({@code pending:ride:{id}}), {@code pending:deadlines} is a sorted
+ * set of next retry tick per ride, and {@code pending:lease:{id}} marks the
+ * node that currently owns the ride's retry tick. Accepting goes through a Lua
+ * script so only one driver can ever win, whichever node the responses land on.
+ */
+@Component
+@ConditionalOnProperty(name = "app.dispatch.pending-store", havingValue = "redis")
+public class RedisPendingRideStore implements PendingRideStore {
+    private static final String RIDE_KEY_PREFIX = "pending:ride:";
+    private static final String LEASE_KEY_PREFIX = "pending:lease:";
+    private static final String DEADLINES_KEY = "pending:deadlines";
+
+    private static final RedisScript<Long> ACCEPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'accepted') == '0' then "
+                    + "redis.call('HSET', KEYS[1], 'accepted', '1') return 1 end "
+                    + "return 0",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "redis.call('HSET', KEYS[1], 'accepted', '0') return 1 end "
+                    + "return 0",
+            Long.class);
+    // ARGV[1] is the TTL, the rest are field/value pairs
+    private static final RedisScript<Long> UPDATE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+    // Never re-add the deadline of a ride that was removed while its tick was running
+    private static final RedisScript<Long> SCHEDULE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REMOVE = new DefaultRedisScript<>(
+            "local fields = redis.call('HGETALL', KEYS[1]) "
+                    + "redis.call('DEL', KEYS[1], KEYS[2]) "
+                    + "redis.call('ZREM', KEYS[3], ARGV[1]) "
+                    + "return fields",
+            List.class);
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long retryIntervalMs;
+    private final Duration rideTtl;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RedisPendingRideStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            DispatchProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.retryIntervalMs = properties.getScheduler().getRetryIntervalMs();
+        // Safety net for rides nobody cleans up, a little longer than the last retry
+        this.rideTtl = Duration.ofMillis((properties.getScheduler().getMaxRetries() + 2L) * retryIntervalMs);
+    }
+
+    @Override
+    public void create(PendingRide pendingRide) {
+        String key = rideKey(pendingRide.getRideRequestId());
+        Map<String, String> fields = toHash(pendingRide);
+        fields.put("accepted", pendingRide.getAccepted().get() ? "1" : "0");
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, rideTtl);
+        redisTemplate.opsForZSet().add(DEADLINES_KEY, pendingRide.getRideRequestId(),
+                System.currentTimeMillis() + retryIntervalMs);
+    }
+
+    @Override
+    public void update(PendingRide pendingRide) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(rideTtl.toMillis()));
+        toHash(pendingRide).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        redisTemplate.execute(UPDATE, List.of(rideKey(pendingRide.getRideRequestId())), args.toArray());
+    }
+
+    @Override
+    public PendingRide get(String rideRequestId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(rideKey(rideRequestId));
+        return fields.isEmpty() ? null : fromHash(rideRequestId, fields);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public PendingRide remove(String rideRequestId) {
+        List<Object> flat = redisTemplate.execute(REMOVE,
+                List.of(rideKey(rideRequestId), leaseKey(rideRequestId), DEADLINES_KEY), rideRequestId);
+        if (flat == null || flat.isEmpty()) {
+            return null;
+        }
+        Map<Object, Object> fields = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            fields.put(flat.get(i), flat.get(i + 1));
+        }
+        return fromHash(rideRequestId, fields);
+    }
+
+    @Override
+    public Collection<PendingRide> findAll() {
+        Set<String> ids = redisTemplate.opsForZSet().range(DEADLINES_KEY, 0, -1);
+        List<PendingRide> rides = new ArrayList<>();
+        if (ids == null) {
+            return rides;
+        }
+        for (String id : ids) {
+            PendingRide pendingRide = get(id);
+            if (pendingRide != null) {
+                rides.add(pendingRide);
+            }
+        }
+        return rides;
+    }
+
+    @Override
+    public int size() {
+        Long size = redisTemplate.opsForZSet().zCard(DEADLINES_KEY);
+        return size == null ? 0 : size.intValue();
+    }
+
+    @Override
+    public boolean tryAccept(String rideRequestId) {
+        Long won = redisTemplate.execute(ACCEPT, List.of(rideKey(rideRequestId)));
+        return won != null && won == 1L;
+    }
+
+    @Override
+    public void releaseAccept(String rideRequestId) {
+        redisTemplate.execute(RELEASE, List.of(rideKey(rideRequestId)));
+    }
+
+    @Override
+    public void scheduleDeadline(String rideRequestId, long dueAtMs) {
+        redisTemplate.execute(SCHEDULE, List.of(rideKey(rideRequestId), DEADLINES_KEY), rideRequestId,
+                String.valueOf(dueAtMs));
+    }
+
+    @Override
+    public List<String> findOverdue(long beforeMs, int limit) {
+        Set<String> ids = redisTemplate.opsForZSet().rangeByScore(DEADLINES_KEY, 0, beforeMs, 0, limit);
+        List<String> overdue = new ArrayList<>();
+        if (ids == null) {
+            return overdue;
+        }
+        for (String id : ids) {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(rideKey(id)))) {
+                overdue.add(id);
+            } else {
+                // The ride hash expired, drop the dangling deadline
+                redisTemplate.opsForZSet().remove(DEADLINES_KEY, id);
+            }
+        }
+        return overdue;
+    }
+
+    @Override
+    public boolean tryAcquireLease(String rideRequestId, long leaseMs) {
+        String key = leaseKey(rideRequestId);
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, nodeId, Duration.ofMillis(leaseMs)))) {
+            return true;
+        }
+        if (nodeId.equals(redisTemplate.opsForValue().get(key))) {
+            redisTemplate.expire(key, Duration.ofMillis(leaseMs));
+            return true;
+        }
+        return false;
+    }
+
+    private Map<String, String> toHash(PendingRide pendingRide) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("request", write(pendingRide.getRequest()));
+        fields.put("customerName", write(pendingRide.getCustomerName()));
+        fields.put("driverIds", write(pendingRide.getDriverIds()));
+        fields.put("currentDriverIndex", String.valueOf(pendingRide.getCurrentDriverIndex()));
+        fields.put("retryCount", String.valueOf(pendingRide.getRetryCount()));
+        fields.put("timestamp", String.valueOf(pendingRide.getTimestamp()));
+        fields.put("rejectedDriverIds", write(pendingRide.getRejectedDriverIds()));
+        fields.put("offeredDriverIds", write(pendingRide.getOfferedDriverIds()));
+        return fields;
+    }
+
+    private PendingRide fromHash(String rideRequestId, Map<Object, Object> fields) {
+        Set<String> rejected = ConcurrentHashMap.newKeySet();
+        rejected.addAll(readIds(fields.get("rejectedDriverIds")));
+        Set<String> offered = ConcurrentHashMap.newKeySet();
+        offered.addAll(readIds(fields.get("offeredDriverIds")));
+        String timestamp = (String) fields.get("timestamp");
+
+        return PendingRide.builder()
+                .rideRequestId(rideRequestId)
+                .request(read((String) fields.get("request"), new TypeReference<RideRequest>() {
+                }))
+                .customerName(read((String) fields.get("customerName"), new TypeReference<String>() {
+                }))
+                .driverIds(new ArrayList<>(readIds(fields.get("driverIds"))))
+                .currentDriverIndex(Integer.parseInt((String) fields.getOrDefault("currentDriverIndex", "0")))
+                .retryCount(Integer.parseInt((String) fields.getOrDefault("retryCount", "0")))
+                .timestamp(timestamp == null || "null".equals(timestamp) ? null : Long.valueOf(timestamp))
+                .accepted(new AtomicBoolean("1".equals(fields.get("accepted"))))
+                .rejectedDriverIds(rejected)
+                .offeredDriverIds(offered)
+                .build();
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize pending ride state", e);
+        }
+    }
+
+    private List<String> readIds(Object json) {
+        List<String> ids = read((String) json, STRING_LIST);
+        return ids == null ? List.of() : ids;
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read pending ride state", e);
+        }
+    }
+
+    private String rideKey(String rideRequestId) {
+        return RIDE_KEY_PREFIX + rideRequestId;
+    }
+
+    private String leaseKey(String rideRequestId) {
+        return LEASE_KEY_PREFIX + rideRequestId;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mycompany.rideapp.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mycompany.rideapp.config.RideArchiveProperties;
+import com.mycompany.rideapp.repository.RideRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves FINISHED/CANCELLED rides older than
+ * {@code app.ride-archive.retention-days} from Ride to RideArchive. Every batch
+ * is copied and deleted in its own short transaction, so the hot table is
+ * never locked for longer than one batch. Rides still referenced by a review or
+ * payment stay in the hot table.
+ */
+@Component
+@Slf4j
+public class RideArchiver {
+    private final RideRepository rideRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RideArchiveProperties properties;
+    private final ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ride-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RideArchiver(RideRepository rideRepository, PlatformTransactionManager transactionManager,
+            RideArchiveProperties properties) {
+        this.rideRepository = rideRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.isEnabled()) {
+            archiver.scheduleWithFixedDelay(this::runQuietly, properties.getIntervalMs(), properties.getIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        archiver.shutdownNow();
+    }
+
+    /**
+     * One archiving pass of at most {@code max-batches-per-run} batches.
+     *
+     * @return number of rides moved
+     */
+    public int archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(properties.getRetentionDays());
+        java.sql.Date cutoffDate = java.sql.Date.valueOf(cutoff);
+        long cutoffMillis = cutoff.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Rides without a ride date are filed under the month of the cutoff
+        int fallbackMonth = cutoff.getYear() * 100 + cutoff.getMonthValue();
+
+        int moved = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer count = transactionTemplate.execute(status -> {
+                List<String> ids = rideRepository.findArchivableIds(cutoffDate, cutoffMillis,
+                        PageRequest.of(0, properties.getBatchSize()));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                rideRepository.copyToArchive(ids, fallbackMonth, System.currentTimeMillis());
+                return rideRepository.deleteAllByIdIn(ids);
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            moved += count;
+            if (count < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    private void runQuietly() {
+        try {
+            int moved = archive();
+            if (moved > 0) {
+                log.info("[ARCHIVE] Moved {} finished rides to the archive", moved);
+            }
+        } catch (Exception e) {
+            log.error("[ARCHIVE] Archiving run failed", e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mycompany.rideapp.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Striped executor for pending ride state. Every ride request id maps to one
+ * single-threaded lane, so all events of a ride (offer timeout, accept,
+ * reject, cancel) run one after another without locks, while different rides
+ * run in parallel. Queued tasks are exported as the
+ * {@code dispatch.lanes.queued} gauge.
+ */
+@Component
+@Slf4j
+public class RideLanes {
+    private final ThreadPoolExecutor[] lanes;
+
+    public RideLanes(DispatchProperties properties, MeterRegistry meterRegistry) {
+        int count = properties.getScheduler().getLanes() > 0 ? properties.getScheduler().getLanes()
+                : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new LaneThread(runnable, index));
+        }
+
+        Gauge.builder("dispatch.lanes.queued", this, RideLanes::queued)
+                .description("Pending ride events waiting for their lane")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task on the ride's lane and returns right away.
+     */
+    public void execute(String rideRequestId, Runnable task) {
+        lanes[laneOf(rideRequestId)].execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("[DISPATCH] Event for ride request {} failed", rideRequestId, e);
+            }
+        });
+    }
+
+    /**
+     * Runs the task on the ride's lane and waits for its result. Exceptions of
+     * the task are rethrown to the caller. Called from the ride's own lane the
+     * task runs inline.
+     */
+    public <T> T call(String rideRequestId, Supplier<T> task) {
+        int lane = laneOf(rideRequestId);
+        if (Thread.currentThread() instanceof LaneThread thread && thread.index == lane) {
+            return task.get();
+        }
+        try {
+            return CompletableFuture.supplyAsync(task, lanes[lane]).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void run(String rideRequestId, Runnable task) {
+        call(rideRequestId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int size() {
+        return lanes.length;
+    }
+
+    public int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private int laneOf(String rideRequestId) {
+        return Math.floorMod(rideRequestId.hashCode(), lanes.length);
+    }
+
+    private static final class LaneThread extends Thread {
+        private final int index;
+
+        private LaneThread(Runnable runnable, int index) {
+            super(runnable, "ride-lane-" + index);
+            this.index = index;
+            setDaemon(true);
+        }
+    }
+}
@@ -1,27 +1,49 @@
 package com.mycompany.rideapp.service;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.DriverSearchQuery;
+import com.mycompany.rideapp.dto.NearbyDriver;
 import com.mycompany.rideapp.dto.PendingRide;
+import com.mycompany.rideapp.dto.RideCursor;
+import com.mycompany.rideapp.dto.RideListing;
 import com.mycompany.rideapp.dto.RideNotification;
 import com.mycompany.rideapp.dto.request.DriverResponseRequest;
+import com.mycompany.rideapp.dto.request.OfferAckRequest;
 import com.mycompany.rideapp.dto.request.RideRequest;
 import com.mycompany.rideapp.dto.response.DriverResponse;
+import com.mycompany.rideapp.dto.response.RideHistoryPageResponse;
 import com.mycompany.rideapp.dto.response.RideResponse;
 import com.mycompany.rideapp.entity.Driver;
 import com.mycompany.rideapp.entity.Ride;
 import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.enums.DispatchMode;
+import com.mycompany.rideapp.enums.RideRequestCancelReason;
 import com.mycompany.rideapp.enums.Status;
 import com.mycompany.rideapp.exception.ResourceNotFoundException;
 import com.mycompany.rideapp.exception.AppException;
@@ -29,13 +51,12 @@ import com.mycompany.rideapp.exception.ErrorCode;
 import com.mycompany.rideapp.mapper.RideMapper;
 import com.mycompany.rideapp.repository.DriverRepository;
 import com.mycompany.rideapp.repository.RideRepository;
+import com.mycompany.rideapp.repository.RideRepositoryCustom.HistoryScope;
 import com.mycompany.rideapp.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -44,6 +65,8 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Slf4j
 public class RideService {
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 50;
+    private static final int MAX_HISTORY_PAGE_SIZE = 200;
 
     private final RideRepository rideRepository;
     private final RideMapper rideMapper;
@@ -52,20 +75,34 @@ public class RideService {
     private final UserRepository userRepository;
     private final DriverRepository driverRepository;
     private final AchievementService achievementService;
-
-    private final Map<String, PendingRide> pendingRides = new ConcurrentHashMap<>();
-    private final Map<String, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
-    private final ScheduledThreadPoolExecutor scheduler = (ScheduledThreadPoolExecutor) Executors
-            .newScheduledThreadPool(10);
+    private final DispatchScheduler dispatchScheduler;
+    private final BatchMatcher batchMatcher;
+    private final DispatchProperties dispatchProperties;
+    private final MeterRegistry meterRegistry;
+    private final CustomerInfoCache customerInfoCache;
+    private final ActiveRideRegistry activeRideRegistry;
+    private final DriverAvailabilityRegistry driverAvailabilityRegistry;
+    private final RideLanes rideLanes;
+    private final OfferTimeouts offerTimeouts;
+    private final DriverSessionRegistry driverSessionRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final PendingRideStore pendingRideStore;
 
     public Map<String, Object> createRide(RideRequest request) {
         String rideRequestId = UUID.randomUUID().toString();
         log.info("[CREATE_RIDE] Starting ride request {} for customer {}", rideRequestId, request.getCustomerId());
 
+        if (isBatchMode()) {
+            return createBatchedRide(rideRequestId, request);
+        }
+
         List<DriverResponse> nearestDrivers = driverService.getNearestDrivers(
                 request.getCustomerLatitude(),
                 request.getCustomerLongitude(),
-                10,
+                candidateLimit(),
                 request.getVehicleType());
 
         log.info("[CREATE_RIDE] Found {} nearest drivers for ride request {}", nearestDrivers.size(), rideRequestId);
@@ -77,19 +114,26 @@ public class RideService {
         PendingRide pendingRide = PendingRide.builder()
                 .rideRequestId(rideRequestId)
                 .request(request)
+                .customerName(resolveCustomerName(request.getCustomerId()))
                 .driverIds(driverIds) // nullable
                 .currentDriverIndex(0)
                 .accepted(new AtomicBoolean(false))
                 .timestamp(System.currentTimeMillis())
                 .build();
 
-        pendingRides.put(rideRequestId, pendingRide);
+        // A driver may answer the first offer before this method returns
+        rideLanes.run(rideRequestId, () -> {
+            pendingRideStore.create(pendingRide);
 
-        if (!driverIds.isEmpty()) {
-            sendNotificationToCurrentDriver(pendingRide);
-        }
+            if (isBroadcastMode()) {
+                offerNextWave(pendingRide, driverIds);
+                pendingRideStore.update(pendingRide);
+            } else if (!driverIds.isEmpty()) {
+                sendNotificationToCurrentDriver(pendingRide);
+            }
 
-        scheduleDriverRetryTask(pendingRide, 120);
+            dispatchScheduler.schedule(rideRequestId);
+        });
 
         Map<String, Object> response = new HashMap<>();
         response.put("rideRequestId", rideRequestId);
@@ -101,71 +145,380 @@ public class RideService {
         return response;
     }
 
-    private void scheduleDriverRetryTask(PendingRide pendingRide, int maxRetries) {
-        AtomicBoolean isCancelled = new AtomicBoolean(false);
+    /**
+     * Batch mode: the ride gets no offer yet, it waits for the next matching
+     * window instead.
+     */
+    private Map<String, Object> createBatchedRide(String rideRequestId, RideRequest request) {
+        PendingRide pendingRide = PendingRide.builder()
+                .rideRequestId(rideRequestId)
+                .request(request)
+                .customerName(resolveCustomerName(request.getCustomerId()))
+                .driverIds(new ArrayList<>())
+                .currentDriverIndex(0)
+                .accepted(new AtomicBoolean(false))
+                .timestamp(System.currentTimeMillis())
+                .build();
 
-        Runnable retryTask = new Runnable() {
-            int retryCount = 0;
+        pendingRideStore.create(pendingRide);
+        batchMatcher.enqueue(rideRequestId);
+        dispatchScheduler.schedule(rideRequestId);
 
-            @Override
-            public void run() {
-                try {
+        Map<String, Object> response = new HashMap<>();
+        response.put("rideRequestId", rideRequestId);
+        response.put("status", "SEARCHING");
+        response.put("message", "Finding driver...");
+        response.put("nearestDriversCount", 0);
 
-                    if (isCancelled.get()) {
-                        cleanupPendingRide(pendingRide.getRideRequestId());
-                        return;
-                    }
+        return response;
+    }
 
-                    if (pendingRide.getAccepted().get()) {
+    /**
+     * Retry tick for every pending ride that became due in the same wheel tick.
+     * All rides share one grouped nearest-driver lookup, then each retry runs
+     * on its ride's lane.
+     */
+    private void processDueRides(List<String> rideRequestIds) {
+        List<PendingRide> due = new ArrayList<>();
+        Map<String, DriverSearchQuery> searches = new HashMap<>();
+        for (String rideRequestId : rideRequestIds) {
+            if (!dispatchScheduler.claim(rideRequestId)) {
+                // Another node took this tick over
+                continue;
+            }
+            PendingRide pendingRide = pendingRideStore.get(rideRequestId);
+            if (pendingRide == null) {
+                // Cancelled or already matched, the wheel entry is just dropped
+                continue;
+            }
+            if (pendingRide.getAccepted().get()) {
+                rideLanes.execute(rideRequestId, () -> cleanupPendingRide(rideRequestId));
+                continue;
+            }
+            if (isBatchMode()) {
+                rideLanes.execute(rideRequestId, () -> retryOnLane(rideRequestId, this::retryBatchedRide));
+                continue;
+            }
+            due.add(pendingRide);
+            searches.put(rideRequestId, DriverSearchQuery.builder()
+                    .latitude(pendingRide.getRequest().getCustomerLatitude())
+                    .longitude(pendingRide.getRequest().getCustomerLongitude())
+                    .limit(candidateLimit())
+                    .vehicleType(pendingRide.getRequest().getVehicleType())
+                    .build());
+        }
+        if (due.isEmpty()) {
+            return;
+        }
 
-                        cleanupPendingRide(pendingRide.getRideRequestId());
-                        return;
-                    }
+        Map<String, List<DriverResponse>> freshDrivers = driverService.getNearestDrivers(searches);
+        for (PendingRide pendingRide : due) {
+            String rideRequestId = pendingRide.getRideRequestId();
+            List<DriverResponse> drivers = freshDrivers.getOrDefault(rideRequestId, Collections.emptyList());
+            rideLanes.execute(rideRequestId,
+                    () -> retryOnLane(rideRequestId, current -> retryPendingRide(current, drivers)));
+        }
+    }
 
-                    retryCount++;
+    /**
+     * Runs one retry on the ride's lane against its current state, which may
+     * have moved on since the tick picked the ride up.
+     */
+    private void retryOnLane(String rideRequestId, Consumer<PendingRide> retry) {
+        PendingRide pendingRide = pendingRideStore.get(rideRequestId);
+        if (pendingRide == null) {
+            return;
+        }
+        if (pendingRide.getAccepted().get()) {
+            cleanupPendingRide(rideRequestId);
+            return;
+        }
+        try {
+            retry.accept(pendingRide);
+        } catch (Exception e) {
+            log.error("[RETRY] Retry failed for ride request {}", rideRequestId, e);
+            dispatchScheduler.schedule(rideRequestId);
+        }
+        pendingRideStore.update(pendingRide);
+    }
 
-                    List<DriverResponse> freshDrivers = driverService.getNearestDrivers(
-                            pendingRide.getRequest().getCustomerLatitude(),
-                            pendingRide.getRequest().getCustomerLongitude(),
-                            10,
-                            pendingRide.getRequest().getVehicleType());
+    private void retryPendingRide(PendingRide pendingRide, List<DriverResponse> freshDrivers) {
+        pendingRide.setRetryCount(pendingRide.getRetryCount() + 1);
 
-                    List<String> freshDriverIds = freshDrivers.stream()
-                            .map(DriverResponse::getId)
-                            .filter(id -> !pendingRide.getRejectedDriverIds().contains(id))
-                            .collect(Collectors.toList());
+        if (pendingRide.getRetryCount() > dispatchScheduler.getMaxRetries()) {
+            giveUpPendingRide(pendingRide);
+            return;
+        }
 
-                    if (!freshDriverIds.isEmpty()) {
-                        pendingRide.setDriverIds(freshDriverIds);
-                        pendingRide.setCurrentDriverIndex(0);
-                        sendNotificationToCurrentDriver(pendingRide);
-                        return;
-                    }
+        List<String> freshDriverIds = freshDrivers.stream()
+                .map(DriverResponse::getId)
+                .filter(id -> !pendingRide.getRejectedDriverIds().contains(id))
+                .collect(Collectors.toList());
+
+        if (isBroadcastMode()) {
+            retryBroadcastRide(pendingRide, freshDriverIds);
+            return;
+        }
 
-                    handleDriverRejection(pendingRide);
+        if (hasOutstandingOffer(pendingRide) && offerTimeouts.isPending(pendingRide.getRideRequestId(),
+                pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex()))) {
+            // The offer's own deadline moves the ride on; replacing it here would
+            // re-offer the same nearest driver and restart the deadline
+            dispatchScheduler.schedule(pendingRide.getRideRequestId());
+            return;
+        }
 
-                    if (pendingRide.getCurrentDriverIndex() >= pendingRide.getDriverIds().size()
-                            || retryCount >= maxRetries) {
-                        notificationService.notifyNoDriverAvailable(
-                                pendingRide.getRequest().getCustomerId(),
-                                pendingRide.getRideRequestId());
-                        cleanupPendingRide(pendingRide.getRideRequestId());
-                        isCancelled.set(true);
-                    }
+        if (!freshDriverIds.isEmpty()) {
+            // The unanswered offer is replaced by the fresh list
+            releaseCurrentOffer(pendingRide);
+            pendingRide.setDriverIds(freshDriverIds);
+            pendingRide.setCurrentDriverIndex(0);
+            sendNotificationToCurrentDriver(pendingRide);
+            dispatchScheduler.schedule(pendingRide.getRideRequestId());
+            return;
+        }
 
-                } catch (Exception e) {
-                }
+        handleDriverRejection(pendingRide);
+
+        if (pendingRide.getCurrentDriverIndex() >= pendingRide.getDriverIds().size()) {
+            giveUpPendingRide(pendingRide);
+            return;
+        }
+        dispatchScheduler.schedule(pendingRide.getRideRequestId());
+    }
+
+    /**
+     * Broadcast mode retry: drivers that let the whole interval pass count as
+     * rejections, their offers are withdrawn and the next wave goes out.
+     */
+    private void retryBroadcastRide(PendingRide pendingRide, List<String> freshDriverIds) {
+        for (String driverId : pendingRide.getOfferedDriverIds()) {
+            pendingRide.getRejectedDriverIds().add(driverId);
+            releaseOffer(pendingRide, driverId);
+        }
+        notificationService.notifyDriversRideRequestCancelled(List.copyOf(pendingRide.getOfferedDriverIds()),
+                pendingRide.getRideRequestId(), RideRequestCancelReason.EXPIRED);
+        pendingRide.getOfferedDriverIds().clear();
+
+        if (!offerNextWave(pendingRide, freshDriverIds)) {
+            giveUpPendingRide(pendingRide);
+            return;
+        }
+        dispatchScheduler.schedule(pendingRide.getRideRequestId());
+    }
+
+    /**
+     * Offers the ride to the next {@code fan-out} drivers that have not
+     * rejected it, are connected and can be claimed, i.e. hold no other offer
+     * and no trip.
+     *
+     * @return false when there was nobody left to offer the ride to
+     */
+    private boolean offerNextWave(PendingRide pendingRide, List<String> candidateIds) {
+        int fanOut = dispatchProperties.getBroadcast().getFanOut();
+        List<String> wave = new ArrayList<>();
+        for (String driverId : candidateIds) {
+            if (wave.size() >= fanOut) {
+                break;
+            }
+            if (!pendingRide.getRejectedDriverIds().contains(driverId)
+                    && !pendingRide.getOfferedDriverIds().contains(driverId)
+                    && driverSessionRegistry.isReachable(driverId)
+                    && driverAvailabilityRegistry.tryOffer(driverId, pendingRide.getRideRequestId())) {
+                wave.add(driverId);
+            }
+        }
+        if (wave.isEmpty()) {
+            return false;
+        }
+
+        pendingRide.getOfferedDriverIds().addAll(wave);
+        pendingRide.setDriverIds(wave);
+        pendingRide.setCurrentDriverIndex(0);
+        sendRideRequest(pendingRide, wave);
+        return true;
+    }
+
+    private void handleBroadcastRejection(PendingRide pendingRide, String driverId) {
+        if (pendingRide.getAccepted().get() || !pendingRide.getOfferedDriverIds().remove(driverId)) {
+            return;
+        }
+        pendingRide.getRejectedDriverIds().add(driverId);
+        releaseOffer(pendingRide, driverId);
+
+        if (!pendingRide.getOfferedDriverIds().isEmpty()) {
+            // Others are still deciding
+            return;
+        }
+
+        List<String> nextDriverIds = driverService.getNearestDrivers(
+                pendingRide.getRequest().getCustomerLatitude(),
+                pendingRide.getRequest().getCustomerLongitude(),
+                candidateLimit(),
+                pendingRide.getRequest().getVehicleType()).stream()
+                .map(DriverResponse::getId)
+                .collect(Collectors.toList());
+        // If nobody is left the retry tick either finds new drivers or gives up
+        offerNextWave(pendingRide, nextDriverIds);
+    }
+
+    private int candidateLimit() {
+        return isBroadcastMode() ? Math.max(10, dispatchProperties.getBroadcast().getFanOut()) : 10;
+    }
+
+    /**
+     * Batch mode retry: an unanswered offer counts as a rejection, and the
+     * ride goes back into the next matching window.
+     */
+    private void retryBatchedRide(PendingRide pendingRide) {
+        pendingRide.setRetryCount(pendingRide.getRetryCount() + 1);
+
+        if (pendingRide.getRetryCount() > dispatchScheduler.getMaxRetries()) {
+            giveUpPendingRide(pendingRide);
+            return;
+        }
+
+        if (hasOutstandingOffer(pendingRide)) {
+            handleDriverRejection(pendingRide);
+        } else {
+            batchMatcher.enqueue(pendingRide.getRideRequestId());
+        }
+        dispatchScheduler.schedule(pendingRide.getRideRequestId());
+    }
+
+    /**
+     * Handler of {@link BatchMatcher}: matches every ride of the window that is
+     * not currently waiting on a driver. Drivers holding an offer or a trip
+     * are never candidates, so each driver is offered at most one ride at a
+     * time.
+     */
+    private void matchBatch(List<String> rideRequestIds) {
+        int candidatesPerRide = dispatchProperties.getBatch().getCandidatesPerRide();
+        Map<String, PendingRide> batch = new HashMap<>();
+        Map<String, List<NearbyDriver>> candidatesByRide = new HashMap<>();
+        for (String rideRequestId : rideRequestIds) {
+            PendingRide pendingRide = pendingRideStore.get(rideRequestId);
+            if (pendingRide == null || pendingRide.getAccepted().get() || hasOutstandingOffer(pendingRide)) {
+                continue;
+            }
+            List<NearbyDriver> candidates = driverService.findCandidateDrivers(DriverSearchQuery.builder()
+                    .latitude(pendingRide.getRequest().getCustomerLatitude())
+                    .longitude(pendingRide.getRequest().getCustomerLongitude())
+                    .limit(candidatesPerRide)
+                    .vehicleType(pendingRide.getRequest().getVehicleType())
+                    .build()).stream()
+                    .filter(candidate -> driverAvailabilityRegistry.isIdle(candidate.getDriverId()))
+                    .filter(candidate -> !pendingRide.getRejectedDriverIds().contains(candidate.getDriverId()))
+                    .collect(Collectors.toList());
+            batch.put(rideRequestId, pendingRide);
+            candidatesByRide.put(rideRequestId, candidates);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> assignment = batchMatcher.assign(candidatesByRide);
+        log.info("[BATCH] Assigned {} of {} rides", assignment.size(), batch.size());
+        for (String rideRequestId : batch.keySet()) {
+            if (!assignment.containsKey(rideRequestId)) {
+                // No candidate or outbid in this window, try again in the next one
+                batchMatcher.enqueue(rideRequestId);
             }
-        };
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(
-                retryTask, 10, 10, TimeUnit.SECONDS);
-        scheduledTasks.put(pendingRide.getRideRequestId(), future);
+        }
+        assignment.forEach((rideRequestId, driverId) -> rideLanes.execute(rideRequestId, () -> {
+            PendingRide pendingRide = pendingRideStore.get(rideRequestId);
+            if (pendingRide == null || pendingRide.getAccepted().get() || hasOutstandingOffer(pendingRide)) {
+                // Cancelled or matched while the window was being solved
+                return;
+            }
+            pendingRide.setDriverIds(new ArrayList<>(List.of(driverId)));
+            pendingRide.setCurrentDriverIndex(0);
+            sendNotificationToCurrentDriver(pendingRide);
+            if (!hasOutstandingOffer(pendingRide)) {
+                // The driver disconnected or got claimed after the window was solved
+                batchMatcher.enqueue(rideRequestId);
+            }
+            pendingRideStore.update(pendingRide);
+        }));
+    }
+
+    private boolean hasOutstandingOffer(PendingRide pendingRide) {
+        return pendingRide.getCurrentDriverIndex() < pendingRide.getDriverIds().size();
     }
 
-    @Transactional
+    private boolean isBatchMode() {
+        return dispatchProperties.getMode() == DispatchMode.BATCH;
+    }
+
+    private boolean isBroadcastMode() {
+        return dispatchProperties.getMode() == DispatchMode.BROADCAST;
+    }
+
+    private void giveUpPendingRide(PendingRide pendingRide) {
+        withdrawOffers(pendingRide);
+        notificationService.notifyNoDriverAvailable(
+                pendingRide.getRequest().getCustomerId(),
+                pendingRide.getRideRequestId());
+        cleanupPendingRide(pendingRide.getRideRequestId());
+    }
+
+    /**
+     * The driver's client received the offer. Only stops the delivery
+     * deadline, the decision deadline keeps running.
+     */
+    public void acknowledgeOffer(OfferAckRequest ack) {
+        if (!offerTimeouts.acknowledge(ack.getRideRequestId(), ack.getDriverId())) {
+            log.debug("[DISPATCH] ACK for unknown offer of ride request {} to driver {}", ack.getRideRequestId(),
+                    ack.getDriverId());
+        }
+    }
+
+    /**
+     * Handler of {@link OfferTimeouts}, moves the expired offer's ride on.
+     */
+    private void onOfferTimeout(String rideRequestId, String driverId, OfferTimeouts.Reason reason) {
+        rideLanes.execute(rideRequestId, () -> expireOffer(rideRequestId, driverId, reason));
+    }
+
+    /**
+     * An offer was not acknowledged or not answered in time: withdraw it and
+     * cascade to the next candidate as if the driver had rejected it.
+     */
+    private void expireOffer(String rideRequestId, String driverId, OfferTimeouts.Reason reason) {
+        PendingRide pendingRide = pendingRideStore.get(rideRequestId);
+        if (pendingRide == null || pendingRide.getAccepted().get()) {
+            return;
+        }
+        boolean outstanding = isBroadcastMode() ? pendingRide.getOfferedDriverIds().contains(driverId)
+                : hasOutstandingOffer(pendingRide)
+                        && driverId.equals(pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex()));
+        if (!outstanding) {
+            return;
+        }
+
+        log.info("[DISPATCH] Offer of ride request {} to driver {} expired ({})", rideRequestId, driverId, reason);
+        notificationService.notifyDriverRideRequestCancelled(driverId, rideRequestId,
+                RideRequestCancelReason.EXPIRED);
+        if (isBroadcastMode()) {
+            handleBroadcastRejection(pendingRide, driverId);
+        } else {
+            handleDriverRejection(pendingRide);
+        }
+        pendingRideStore.update(pendingRide);
+    }
+
+    /**
+     * Hands a driver's answer to the ride's lane and returns right away, so the
+     * STOMP inbound thread never waits on a busy lane or the database.
+     */
     public void handleDriverResponse(DriverResponseRequest response) {
+        rideLanes.execute(response.getRideRequestId(), () -> applyDriverResponse(response));
+    }
+
+    private void applyDriverResponse(DriverResponseRequest response) {
         String rideRequestId = response.getRideRequestId();
-        PendingRide pendingRide = pendingRides.get(rideRequestId);
+        offerTimeouts.resolve(rideRequestId, response.getDriverId());
+        PendingRide pendingRide = pendingRideStore.get(rideRequestId);
 
         if (pendingRide == null) {
             // Ride request was already cancelled or completed
@@ -174,33 +527,52 @@ public class RideService {
                         response.getDriverId(), rideRequestId);
                 notificationService.notifyDriverRideRequestCancelled(
                         response.getDriverId(),
-                        rideRequestId);
+                        rideRequestId,
+                        RideRequestCancelReason.CLOSED);
             }
             return;
         }
 
         if (response.getAccepted()) {
-            handleDriverAcceptance(pendingRide, response.getDriverId());
+            // Lane threads have no transaction of their own
+            transactionTemplate.executeWithoutResult(
+                    status -> handleDriverAcceptance(pendingRide, response.getDriverId(), status));
+        } else if (isBroadcastMode()) {
+            handleBroadcastRejection(pendingRide, response.getDriverId());
+            pendingRideStore.update(pendingRide);
         } else {
             handleDriverRejection(pendingRide);
+            pendingRideStore.update(pendingRide);
         }
     }
 
     private void cleanupPendingRide(String rideRequestId) {
-        pendingRides.remove(rideRequestId);
-        java.util.concurrent.ScheduledFuture<?> task = scheduledTasks.remove(rideRequestId);
-        if (task != null) {
-            task.cancel(false);
-        }
+        pendingRideStore.remove(rideRequestId);
+        offerTimeouts.forget(rideRequestId);
     }
 
-    private void handleDriverAcceptance(PendingRide pendingRide, String driverId) {
-        pendingRide.getAccepted().set(true);
-
-        java.util.concurrent.ScheduledFuture<?> task = scheduledTasks.remove(pendingRide.getRideRequestId());
-        if (task != null) {
-            task.cancel(false);
+    /**
+     * Saves the ride inside the caller's transaction. Everything others can
+     * observe (notifications, the active ride, freed drivers) happens only after
+     * the commit; on a failure or rollback the accept is released and the ride
+     * stays pending.
+     */
+    private void handleDriverAcceptance(PendingRide pendingRide, String driverId, TransactionStatus status) {
+        if (activeRideRegistry.hasActiveRide(driverId)) {
+            log.warn("Driver {} is on a trip and cannot accept ride request {}", driverId,
+                    pendingRide.getRideRequestId());
+            notificationService.notifyDriverRideRequestCancelled(driverId, pendingRide.getRideRequestId(),
+                    RideRequestCancelReason.UNAVAILABLE);
+            return;
+        }
+        // First accept wins, anyone arriving later has lost the race
+        if (!pendingRideStore.tryAccept(pendingRide.getRideRequestId())) {
+            log.info("Driver {} lost ride request {} to another driver", driverId, pendingRide.getRideRequestId());
+            notificationService.notifyDriverRideRequestCancelled(driverId, pendingRide.getRideRequestId(),
+                    RideRequestCancelReason.TAKEN);
+            return;
         }
+        pendingRide.getAccepted().set(true);
 
         try {
             Driver driver = driverRepository.findById(driverId)
@@ -235,22 +607,69 @@ public class RideService {
                     .rideDate(rideDate)
                     .build();
 
-            ride = rideRepository.save(ride);
+            Ride saved = rideRepository.save(ride);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    completeAcceptance(pendingRide, driverId, driver, saved);
+                }
 
-            notificationService.notifyRideAccepted(
-                    pendingRide.getRequest().getCustomerId(),
-                    driver,
-                    ride.getId());
+                @Override
+                public void afterCompletion(int completion) {
+                    if (completion != STATUS_COMMITTED) {
+                        log.error("Ride for driver {} and ride request {} was rolled back", driverId,
+                                pendingRide.getRideRequestId());
+                        releaseAcceptance(pendingRide);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("Driver {} could not accept ride request {}", driverId, pendingRide.getRideRequestId(), e);
+            status.setRollbackOnly();
+            releaseAcceptance(pendingRide);
+        }
+    }
 
-            notificationService.notifyDriverRideCreated(
-                    driverId,
-                    ride.getId(),
-                    pendingRide.getRequest().getCustomerId());
-            pendingRides.remove(pendingRide.getRideRequestId());
+    private void completeAcceptance(PendingRide pendingRide, String driverId, Driver driver, Ride ride) {
+        activeRideRegistry.update(rideMapper.toResponse(ride));
+
+        notificationService.notifyRideAccepted(
+                pendingRide.getRequest().getCustomerId(),
+                driver,
+                ride.getId());
+
+        notificationService.notifyDriverRideCreated(
+                driverId,
+                ride.getId(),
+                pendingRide.getRequest().getCustomerId());
+        pendingRideStore.remove(pendingRide.getRideRequestId());
+        recordMatchTime(pendingRide);
+        // The winner is ON_TRIP through the active ride now, everyone else is free again
+        withdrawOffers(pendingRide);
+        releaseOffer(pendingRide, driverId);
+
+        List<String> losers = pendingRide.getOfferedDriverIds().stream()
+                .filter(offeredDriverId -> !offeredDriverId.equals(driverId))
+                .toList();
+        notificationService.notifyDriversRideRequestCancelled(losers, pendingRide.getRideRequestId(),
+                RideRequestCancelReason.TAKEN);
+    }
 
-        } catch (Exception e) {
-            pendingRide.getAccepted().set(false);
+    private void releaseAcceptance(PendingRide pendingRide) {
+        pendingRide.getAccepted().set(false);
+        pendingRideStore.releaseAccept(pendingRide.getRideRequestId());
+    }
+
+    private void recordMatchTime(PendingRide pendingRide) {
+        if (pendingRide.getTimestamp() == null) {
+            return;
         }
+        Timer.builder("ride.match.time")
+                .description("Time from ride request to driver acceptance")
+                .tag("mode", dispatchProperties.getMode().name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.currentTimeMillis() - pendingRide.getTimestamp(), TimeUnit.MILLISECONDS);
     }
 
     private void handleDriverRejection(PendingRide pendingRide) {
@@ -263,6 +682,15 @@ public class RideService {
         if (pendingRide.getCurrentDriverIndex() < pendingRide.getDriverIds().size()) {
             String rejectedDriverId = pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex());
             pendingRide.getRejectedDriverIds().add(rejectedDriverId);
+            releaseOffer(pendingRide, rejectedDriverId);
+        }
+
+        if (isBatchMode()) {
+            // The ride competes in the next window instead of walking its own list
+            pendingRide.setDriverIds(new ArrayList<>());
+            pendingRide.setCurrentDriverIndex(0);
+            batchMatcher.enqueue(pendingRide.getRideRequestId());
+            return;
         }
 
         // Move to next driver
@@ -272,7 +700,7 @@ public class RideService {
             List<DriverResponse> newDrivers = driverService.getNearestDrivers(
                     pendingRide.getRequest().getCustomerLatitude(),
                     pendingRide.getRequest().getCustomerLongitude(),
-                    10,
+                    candidateLimit(),
                     pendingRide.getRequest().getVehicleType());
 
             List<String> newDriverIds = newDrivers.stream()
@@ -294,20 +722,49 @@ public class RideService {
         }
     }
 
+    /**
+     * Offers the ride to the current driver of the list, skipping drivers that
+     * disconnected or took another offer or a trip since the search. Leaves
+     * the list exhausted when nobody could be claimed.
+     */
     private void sendNotificationToCurrentDriver(PendingRide pendingRide) {
-        String currentDriverId = pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex());
-
-        // Fetch customer name
-        String customerName = "Khách hàng";
-        try {
-            User customer = userRepository.findById(pendingRide.getRequest().getCustomerId())
-                    .orElse(null);
-            if (customer != null && customer.getName() != null) {
-                customerName = customer.getName();
+        while (hasOutstandingOffer(pendingRide)) {
+            String driverId = pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex());
+            if (driverSessionRegistry.isReachable(driverId)
+                    && driverAvailabilityRegistry.tryOffer(driverId, pendingRide.getRideRequestId())) {
+                sendRideRequest(pendingRide, List.of(driverId));
+                return;
             }
-        } catch (Exception e) {
-            log.warn("Could not fetch customer name for notification", e);
+            pendingRide.setCurrentDriverIndex(pendingRide.getCurrentDriverIndex() + 1);
+        }
+    }
+
+    private void releaseOffer(PendingRide pendingRide, String driverId) {
+        driverAvailabilityRegistry.release(driverId, pendingRide.getRideRequestId());
+        offerTimeouts.resolve(pendingRide.getRideRequestId(), driverId);
+    }
+
+    private void releaseCurrentOffer(PendingRide pendingRide) {
+        if (hasOutstandingOffer(pendingRide)) {
+            releaseOffer(pendingRide, pendingRide.getDriverIds().get(pendingRide.getCurrentDriverIndex()));
         }
+    }
+
+    /**
+     * Frees every driver still holding an offer of the ride.
+     */
+    private void withdrawOffers(PendingRide pendingRide) {
+        releaseCurrentOffer(pendingRide);
+        pendingRide.getOfferedDriverIds()
+                .forEach(driverId -> driverAvailabilityRegistry.release(driverId, pendingRide.getRideRequestId()));
+        offerTimeouts.forget(pendingRide.getRideRequestId());
+    }
+
+    private void sendRideRequest(PendingRide pendingRide, List<String> driverIds) {
+        if (pendingRide.getCustomerName() == null) {
+            pendingRide.setCustomerName(resolveCustomerName(pendingRide.getRequest().getCustomerId()));
+        }
+        String customerName = pendingRide.getCustomerName();
 
         RideNotification notification = RideNotification.builder()
                 .rideRequestId(pendingRide.getRideRequestId())
@@ -325,54 +782,105 @@ public class RideService {
                 .timestamp(System.currentTimeMillis())
                 .build();
 
-        log.info("Sending notification to driver {} with customer name: {}", currentDriverId, customerName);
-        notificationService.sendRideRequestToDriver(currentDriverId, notification);
+        log.info("Sending notification to drivers {} with customer name: {}", driverIds, customerName);
+        // Serialized once for the whole wave
+        notificationService.sendRideRequestToDrivers(driverIds, notification);
+        for (String driverId : driverIds) {
+            offerTimeouts.track(pendingRide.getRideRequestId(), driverId);
+        }
+    }
+
+    private String resolveCustomerName(String customerId) {
+        try {
+            String name = customerInfoCache.getDisplayName(customerId);
+            if (name != null) {
+                return name;
+            }
+        } catch (Exception e) {
+            log.warn("Could not fetch customer name for notification", e);
+        }
+        return "Khách hàng";
     }
 
     public RideResponse getRideById(String id) {
-        Ride ride = rideRepository.findById(id)
+        Ride ride = rideRepository.findAnyById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + id));
         return rideMapper.toResponse(ride);
     }
 
-    public List<RideResponse> getAllRides() {
-        List<Ride> rides = rideRepository.findAll();
-        return rides.stream().map(rideMapper::toResponse).collect(Collectors.toList());
-    }
-
     public RideResponse updateRide(String id, RideRequest request) {
         Ride oldRide = rideRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + id));
 
         Ride updated = rideMapper.toEntity(request);
         updated.setId(id);
+        updated.setVersion(oldRide.getVersion());
         updated.setReviews(oldRide.getReviews());
         updated.setPayments(oldRide.getPayments());
 
         updated = rideRepository.save(updated);
-        return rideMapper.toResponse(updated);
-    }
-
-    public List<RideResponse> getRidesByDriverId(String driverId) {
-        List<Ride> rides = rideRepository.findByDriver_Id(driverId);
-        return rides.stream().map(rideMapper::toResponse).collect(Collectors.toList());
+        RideResponse response = rideMapper.toResponse(updated);
+        activeRideRegistry.update(response);
+        return response;
     }
 
-    public List<RideResponse> getRidesByCustomerId(String customerId) {
-        List<Ride> rides = rideRepository.findByCustomer_Id(customerId);
-        return rides.stream().map(rideMapper::toResponse).collect(Collectors.toList());
+    /**
+     * One page of ride history, newest first.
+     *
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit  page size, defaults to {@value #DEFAULT_HISTORY_PAGE_SIZE}
+     */
+    @Transactional(readOnly = true)
+    public RideHistoryPageResponse getRideHistory(HistoryScope scope, String participantId, String cursor,
+            Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_HISTORY_PAGE_SIZE
+                : Math.min(limit, MAX_HISTORY_PAGE_SIZE);
+        List<RideListing> rides = rideRepository.findHistoryPage(scope, participantId, RideCursor.decode(cursor),
+                pageSize);
+
+        String nextCursor = rides.size() == pageSize ? RideCursor.after(rides.get(rides.size() - 1)).encode() : null;
+        return RideHistoryPageResponse.builder()
+                .rides(rides.stream().map(rideMapper::toResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
     }
 
-    public List<RideResponse> getRidesByUserId(String userId) {
-        List<Ride> rides = rideRepository.findByUserId(userId);
-        return rides.stream().map(rideMapper::toResponse).collect(Collectors.toList());
+    /**
+     * Writes the whole ride history as newline-delimited JSON, one ride per
+     * line, streaming rows from the database in constant memory.
+     */
+    @Transactional(readOnly = true)
+    public void exportRideHistory(HistoryScope scope, String participantId, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(RideResponse.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try (Stream<RideListing> rides = rideRepository.streamHistory(scope, participantId)) {
+            Iterator<RideListing> iterator = rides.iterator();
+            while (iterator.hasNext()) {
+                buffered.write(writer.writeValueAsBytes(rideMapper.toResponse(iterator.next())));
+                buffered.write('\n');
+            }
+        }
+        buffered.flush();
     }
 
-    public RideResponse updateRideStatus(String rideId, Status status) {
+    /**
+     * Applies one state machine transition with a single conditional UPDATE.
+     * Repeating the transition the ride is already in is a no-op.
+     *
+     * @param expectedVersion optional version the ride must still be at
+     */
+    public RideResponse updateRideStatus(String rideId, Status status, Long expectedVersion) {
+        Set<Status> sources = RideStateMachine.sourcesOf(status);
+        int updated = sources.isEmpty() ? 0 : rideRepository.transition(rideId, sources, status, expectedVersion);
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + rideId));
-        ride.setStatus(status);
-        ride = rideRepository.save(ride);
+        if (updated == 0) {
+            if (ride.getStatus() == status && expectedVersion == null) {
+                return rideMapper.toResponse(ride);
+            }
+            log.warn("Rejected status change of ride {} from {} to {}", rideId, ride.getStatus(), status);
+            throw new AppException(ErrorCode.RIDE_STATUS_CONFLICT);
+        }
 
         if (ride.getCustomer() != null) {
             notificationService.notifyRideStatusUpdate(
@@ -392,7 +900,9 @@ public class RideService {
             }
         }
 
-        return rideMapper.toResponse(ride);
+        RideResponse response = rideMapper.toResponse(ride);
+        activeRideRegistry.update(response);
+        return response;
     }
 
     public Map<String, Object> cancelRide(String rideId, String userId, String role) {
@@ -408,8 +918,13 @@ public class RideService {
             throw new RuntimeException("Not authorized to cancel this ride");
         }
 
-        ride.setStatus(Status.CANCELLED);
-        rideRepository.save(ride);
+        // The participants were checked at this version, a concurrent change makes the cancel fail
+        if (rideRepository.transition(rideId, RideStateMachine.sourcesOf(Status.CANCELLED), Status.CANCELLED,
+                ride.getVersion()) == 0) {
+            log.warn("Rejected cancel of ride {} in status {}", rideId, ride.getStatus());
+            throw new AppException(ErrorCode.RIDE_STATUS_CONFLICT);
+        }
+        activeRideRegistry.remove(rideId);
 
         if (ride.getCustomer() != null && ride.getDriver() != null) {
             notificationService.notifyRideCancellation(
@@ -429,59 +944,44 @@ public class RideService {
     }
 
     public void cancelPendingRide(String rideRequestId) {
+        rideLanes.run(rideRequestId, () -> applyPendingRideCancel(rideRequestId));
+    }
+
+    private void applyPendingRideCancel(String rideRequestId) {
         log.info("[CANCEL_PENDING] Cancelling pending ride request {}", rideRequestId);
-        PendingRide removed = pendingRides.remove(rideRequestId);
+        PendingRide removed = pendingRideStore.remove(rideRequestId);
         if (removed != null) {
+            withdrawOffers(removed);
             log.info("[CANCEL_PENDING] Removed pending ride {} from map. Was at driver index {}/{}",
                     rideRequestId, removed.getCurrentDriverIndex(), removed.getDriverIds().size());
 
             // Notify all drivers who were sent this ride request
-            if (removed.getCurrentDriverIndex() < removed.getDriverIds().size()) {
+            if (isBroadcastMode()) {
+                notificationService.notifyDriversRideRequestCancelled(removed.getOfferedDriverIds(), rideRequestId,
+                        RideRequestCancelReason.CANCELLED);
+            } else if (removed.getCurrentDriverIndex() < removed.getDriverIds().size()) {
                 String currentDriverId = removed.getDriverIds().get(removed.getCurrentDriverIndex());
                 log.info("[CANCEL_PENDING] Notifying current driver {} that ride request was cancelled",
                         currentDriverId);
-                notificationService.notifyDriverRideRequestCancelled(currentDriverId, rideRequestId);
+                notificationService.notifyDriverRideRequestCancelled(currentDriverId, rideRequestId,
+                        RideRequestCancelReason.CANCELLED);
             }
         } else {
             log.warn("[CANCEL_PENDING] Ride request {} not found in pending rides map", rideRequestId);
         }
 
-        ScheduledFuture<?> task = scheduledTasks.remove(rideRequestId);
-        if (task != null) {
-            boolean wasCancelled = task.cancel(false);
-            log.info("[CANCEL_PENDING] Cancelled scheduled task for ride request {}, success: {}",
-                    rideRequestId, wasCancelled);
-        } else {
-            log.warn("[CANCEL_PENDING] No scheduled task found for ride request {}", rideRequestId);
-        }
-        log.info("[CANCEL_PENDING] Remaining pending rides: {}, scheduled tasks: {}",
-                pendingRides.size(), scheduledTasks.size());
+        log.info("[CANCEL_PENDING] Remaining pending rides: {}, dispatch queue depth: {}",
+                pendingRideStore.size(), dispatchScheduler.queueDepth());
     }
 
     public RideResponse getActiveRide(String userId) {
-        return rideRepository.findActiveRideByUserId(userId)
-                .map(rideMapper::toResponse)
-                .orElse(null);
-    }
-
-    @PreDestroy
-    public void cleanup() {
-        scheduledTasks.values().forEach(task -> task.cancel(false));
-        scheduler.shutdown();
+        return activeRideRegistry.findByParticipant(userId);
     }
 
-    // DEBUG
     @PostConstruct
     public void init() {
-        scheduler.setRemoveOnCancelPolicy(true);
-        logSchedulerStatus();
-    }
-
-    private void logSchedulerStatus() {
-        log.info("Active threads: {}", scheduler.getActiveCount());
-        log.info("Pool size: {}", scheduler.getPoolSize());
-        log.info("Task count: {}", scheduler.getTaskCount());
-        log.info("Completed tasks: {}", scheduler.getCompletedTaskCount());
-        log.info("Queue size: {}", scheduler.getQueue().size());
+        dispatchScheduler.setHandler(this::processDueRides);
+        batchMatcher.setHandler(this::matchBatch);
+        offerTimeouts.setHandler(this::onOfferTimeout);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.mycompany.rideapp.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.mycompany.rideapp.enums.Status;
+
+/**
+ * Allowed ride status transitions. RideRepository#transition enforces them in
+ * the WHERE clause of a single UPDATE, so a transition needs no prior read and
+ * concurrent driver/customer actions cannot both win.
+ */
+public final class RideStateMachine {
+    private static final Map<Status, Set<Status>> NEXT = new EnumMap<>(Status.class);
+    private static final Map<Status, Set<Status>> SOURCES = new EnumMap<>(Status.class);
+
+    static {
+        NEXT.put(Status.PENDING, EnumSet.of(Status.CONFIRMED, Status.CANCELLED));
+        NEXT.put(Status.CONFIRMED, EnumSet.of(Status.PICKINGUP, Status.ONGOING, Status.CANCELLED));
+        NEXT.put(Status.PICKINGUP, EnumSet.of(Status.ONGOING, Status.CANCELLED));
+        NEXT.put(Status.ONGOING, EnumSet.of(Status.FINISHED, Status.CANCELLED));
+        NEXT.put(Status.FINISHED, EnumSet.noneOf(Status.class));
+        NEXT.put(Status.CANCELLED, EnumSet.noneOf(Status.class));
+
+        for (Status target : Status.values()) {
+            SOURCES.put(target, EnumSet.noneOf(Status.class));
+        }
+        NEXT.forEach((from, targets) -> targets.forEach(target -> SOURCES.get(target).add(from)));
+    }
+
+    private RideStateMachine() {
+    }
+
+    public static boolean canTransition(Status from, Status to) {
+        return from != null && to != null && NEXT.get(from).contains(to);
+    }
+
+    /**
+     * Statuses a ride may be in to move to {@code target}; empty for PENDING,
+     * which only new rides have.
+     */
+    public static Set<Status> sourcesOf(Status target) {
+        return Collections.unmodifiableSet(SOURCES.get(target));
+    }
+}
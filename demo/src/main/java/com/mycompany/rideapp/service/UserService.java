@@ -40,6 +40,7 @@ public class UserService {
     ImageStorageService imageStorageService;
     UserMapper userMapper;
     AchievementService achievementService;
+    CustomerInfoCache customerInfoCache;
 
     public UserResponse userRegister(UserRequest userRqDto) {
         User user = userMapper.toEntity(userRqDto);
@@ -106,6 +107,7 @@ public class UserService {
         }
 
         userRepository.save(user);
+        customerInfoCache.invalidate(userId);
         log.info("User profile updated for ID: {}", userId);
         return userMapper.toResponse(user);
     }
@@ -168,6 +170,7 @@ public class UserService {
         }
 
         userRepository.deleteById(userId);
+        customerInfoCache.invalidate(userId);
         log.info("User deleted: {}", userId);
     }
 
@@ -29,6 +29,7 @@ import lombok.extern.slf4j.Slf4j;
 public class VehicleRegisterService {
     VehicleRegisterRepository vehicleRegisterRepository;
     DriverRepository driverRepository;
+    DriverService driverService;
 
     public VehicleRegisterResponse registerVehicle(VehicleRegisterRequest request) {
         // Check if driver exists
@@ -42,6 +43,7 @@ public class VehicleRegisterService {
 
         VehicleRegister vehicle = VehicleRegisterMapper.toEntity(request, driver);
         vehicleRegisterRepository.save(vehicle);
+        driverService.reindexDriver(driver.getId());
 
         log.info("Vehicle registered successfully with ID: {}", vehicle.getId());
         return VehicleRegisterMapper.toResponse(vehicle);
@@ -78,6 +80,7 @@ public class VehicleRegisterService {
 
         VehicleRegisterMapper.updateEntity(vehicle, request);
         vehicleRegisterRepository.save(vehicle);
+        reindexOwner(vehicle);
 
         log.info("Vehicle updated successfully with ID: {}", vehicle.getId());
         return VehicleRegisterMapper.toResponse(vehicle);
@@ -89,20 +92,27 @@ public class VehicleRegisterService {
 
         vehicle.setStatus(status);
         vehicleRegisterRepository.save(vehicle);
+        reindexOwner(vehicle);
 
         log.info("Vehicle status updated to {} for ID: {}", status, vehicle.getId());
         return VehicleRegisterMapper.toResponse(vehicle);
     }
 
     public void deleteVehicle(String id) {
-        if (!vehicleRegisterRepository.existsById(id)) {
-            throw new AppException(ErrorCode.USER_NOT_FOUND);
-        }
+        VehicleRegister vehicle = vehicleRegisterRepository.findById(id)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
 
-        vehicleRegisterRepository.deleteById(id);
+        vehicleRegisterRepository.delete(vehicle);
+        reindexOwner(vehicle);
         log.info("Vehicle deleted successfully with ID: {}", id);
     }
 
+    private void reindexOwner(VehicleRegister vehicle) {
+        if (vehicle.getDriver() != null) {
+            driverService.reindexDriver(vehicle.getDriver().getId());
+        }
+    }
+
     public List<VehicleRegisterResponse> getVehiclesByStatus(VehicleStatus status) {
         return vehicleRegisterRepository.findByStatus(status).stream()
                 .map(VehicleRegisterMapper::toResponse)
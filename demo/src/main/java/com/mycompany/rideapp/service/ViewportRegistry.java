@@ -0,0 +1,274 @@
+package com.mycompany.rideapp.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.dto.event.DriverMapDelta;
+import com.mycompany.rideapp.dto.request.ViewportRequest;
+import com.mycompany.rideapp.enums.MapChange;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live driver maps. A client registers a viewport (bounding box and zoom) over
+ * STOMP and gets ENTER/MOVE/LEAVE deltas on {@code /topic/map/{viewportId}}
+ * instead of polling {@code /driver/nearby}. Viewports are indexed on a grid of
+ * {@code app.dispatch.viewport.cell-size-degrees}, and every driver remembers
+ * the viewports currently showing it, so a position update only touches the
+ * viewports it actually changes. Viewports follow the position updates that
+ * reach this node.
+ */
+@Component
+@Slf4j
+public class ViewportRegistry {
+    private final DriverLocationStore driverLocationStore;
+    private final NotificationService notificationService;
+    private final double cellSize;
+    private final double minZoom;
+    private final int maxCells;
+    private final int snapshotLimit;
+    private final long columns;
+
+    private final Map<String, Viewport> viewports = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Viewport>> viewportsByCell = new ConcurrentHashMap<>();
+    // driver id -> viewports currently showing the driver
+    private final Map<String, Set<Viewport>> watchers = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> viewportsBySession = new ConcurrentHashMap<>();
+
+    public ViewportRegistry(DriverLocationStore driverLocationStore, NotificationService notificationService,
+            DispatchProperties properties, MeterRegistry meterRegistry) {
+        this.driverLocationStore = driverLocationStore;
+        this.notificationService = notificationService;
+        this.cellSize = properties.getViewport().getCellSizeDegrees();
+        this.minZoom = properties.getViewport().getMinZoom();
+        this.maxCells = properties.getViewport().getMaxCells();
+        this.snapshotLimit = properties.getViewport().getSnapshotLimit();
+        this.columns = (long) Math.ceil(360 / cellSize) + 1;
+
+        Gauge.builder("map.viewports", viewports, Map::size)
+                .description("Live driver map viewports on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers or moves a viewport. The client gets one delta with the drivers
+     * that entered or left compared to what the viewport showed before.
+     *
+     * @return false when the viewport is too far zoomed out to stream
+     */
+    public boolean register(String sessionId, ViewportRequest request) {
+        if (request.getViewportId() == null || request.getMinLat() == null || request.getMaxLat() == null
+                || request.getMinLng() == null || request.getMaxLng() == null) {
+            return false;
+        }
+        Viewport viewport = new Viewport(request.getViewportId(), sessionId, request.getMinLat(),
+                request.getMaxLat(), request.getMinLng(), request.getMaxLng());
+        long cellCount = (viewport.maxRow - viewport.minRow + 1) * (viewport.maxColumn - viewport.minColumn + 1);
+        if ((request.getZoom() != null && request.getZoom() < minZoom) || cellCount > maxCells) {
+            log.debug("[MAP] Viewport {} is too large to stream ({} cells)", request.getViewportId(), cellCount);
+            unregister(request.getViewportId());
+            return false;
+        }
+
+        Viewport previous = viewports.put(viewport.id, viewport);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (sessionId != null) {
+            viewportsBySession.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(viewport.id);
+        }
+
+        List<DriverMapDelta.Change> changes = new ArrayList<>();
+        for (NearbyDriver driver : driverLocationStore.findInBox(viewport.minLat, viewport.maxLat, viewport.minLng,
+                viewport.maxLng, snapshotLimit)) {
+            viewport.visible.add(driver.getDriverId());
+            watchers.computeIfAbsent(driver.getDriverId(), id -> ConcurrentHashMap.newKeySet()).add(viewport);
+            // Drivers the previous viewport already showed need no ENTER
+            if (previous == null || !previous.visible.contains(driver.getDriverId())) {
+                changes.add(new DriverMapDelta.Change(MapChange.ENTER, driver.getDriverId(), driver.getLatitude(),
+                        driver.getLongitude()));
+            }
+        }
+        if (previous != null) {
+            for (String driverId : previous.visible) {
+                if (!viewport.visible.contains(driverId)) {
+                    changes.add(new DriverMapDelta.Change(MapChange.LEAVE, driverId, null, null));
+                }
+            }
+        }
+        index(viewport);
+        notificationService.notifyViewport(new DriverMapDelta(viewport.id, changes));
+        return true;
+    }
+
+    public void unregister(String viewportId) {
+        Viewport viewport = viewports.remove(viewportId);
+        if (viewport == null) {
+            return;
+        }
+        unindex(viewport);
+        if (viewport.sessionId != null) {
+            viewportsBySession.computeIfPresent(viewport.sessionId, (id, ids) -> {
+                ids.remove(viewportId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Set<String> ids = viewportsBySession.remove(event.getSessionId());
+        if (ids != null) {
+            ids.forEach(this::unregister);
+        }
+    }
+
+    /**
+     * Pushes ENTER/MOVE to the viewports now containing the driver and LEAVE to
+     * the ones it just left.
+     */
+    public void onDriverMoved(String driverId, double lat, double lng) {
+        Set<Viewport> candidates = viewportsByCell.get(cellKey(row(lat), column(lng)));
+        Set<Viewport> before = watchers.get(driverId);
+        if (candidates == null && before == null) {
+            return;
+        }
+
+        Set<Viewport> inside = new HashSet<>();
+        if (candidates != null) {
+            for (Viewport viewport : candidates) {
+                if (viewport.contains(lat, lng)) {
+                    inside.add(viewport);
+                    MapChange change = viewport.visible.add(driverId) ? MapChange.ENTER : MapChange.MOVE;
+                    push(viewport, new DriverMapDelta.Change(change, driverId, lat, lng));
+                }
+            }
+        }
+        if (before != null) {
+            for (Viewport viewport : before) {
+                if (!inside.contains(viewport) && viewport.visible.remove(driverId)) {
+                    push(viewport, new DriverMapDelta.Change(MapChange.LEAVE, driverId, null, null));
+                }
+            }
+        }
+
+        if (inside.isEmpty()) {
+            watchers.remove(driverId);
+        } else {
+            Set<Viewport> showing = ConcurrentHashMap.newKeySet();
+            showing.addAll(inside);
+            watchers.put(driverId, showing);
+        }
+    }
+
+    /**
+     * The driver went offline or stopped being ACTIVE.
+     */
+    public void onDriverRemoved(String driverId) {
+        Set<Viewport> before = watchers.remove(driverId);
+        if (before == null) {
+            return;
+        }
+        for (Viewport viewport : before) {
+            if (viewport.visible.remove(driverId)) {
+                push(viewport, new DriverMapDelta.Change(MapChange.LEAVE, driverId, null, null));
+            }
+        }
+    }
+
+    public int size() {
+        return viewports.size();
+    }
+
+    private void push(Viewport viewport, DriverMapDelta.Change change) {
+        // Skip viewports replaced or closed while this update was running
+        if (viewports.get(viewport.id) == viewport) {
+            notificationService.notifyViewport(new DriverMapDelta(viewport.id, Collections.singletonList(change)));
+        }
+    }
+
+    private void index(Viewport viewport) {
+        forEachCell(viewport, cell -> viewportsByCell
+                .computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet())
+                .add(viewport));
+    }
+
+    private void unindex(Viewport viewport) {
+        forEachCell(viewport, cell -> viewportsByCell.computeIfPresent(cell, (key, members) -> {
+            members.remove(viewport);
+            return members.isEmpty() ? null : members;
+        }));
+        for (String driverId : viewport.visible) {
+            watchers.computeIfPresent(driverId, (id, showing) -> {
+                showing.remove(viewport);
+                return showing.isEmpty() ? null : showing;
+            });
+        }
+    }
+
+    private void forEachCell(Viewport viewport, LongConsumer action) {
+        for (long row = viewport.minRow; row <= viewport.maxRow; row++) {
+            for (long column = viewport.minColumn; column <= viewport.maxColumn; column++) {
+                action.accept(cellKey(row, column));
+            }
+        }
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor((lat + 90) / cellSize);
+    }
+
+    private long column(double lng) {
+        return (long) Math.floor((lng + 180) / cellSize);
+    }
+
+    private long cellKey(long row, long column) {
+        return row * columns + Math.floorMod(column, columns);
+    }
+
+    private final class Viewport {
+        final String id;
+        final String sessionId;
+        final double minLat;
+        final double maxLat;
+        final double minLng;
+        final double maxLng;
+        final long minRow;
+        final long maxRow;
+        final long minColumn;
+        final long maxColumn;
+        // Drivers the client currently shows
+        final Set<String> visible = ConcurrentHashMap.newKeySet();
+
+        Viewport(String id, String sessionId, double minLat, double maxLat, double minLng, double maxLng) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.minLat = Math.min(minLat, maxLat);
+            this.maxLat = Math.max(minLat, maxLat);
+            this.minLng = Math.min(minLng, maxLng);
+            this.maxLng = Math.max(minLng, maxLng);
+            this.minRow = row(this.minLat);
+            this.maxRow = row(this.maxLat);
+            this.minColumn = column(this.minLng);
+            this.maxColumn = column(this.maxLng);
+        }
+
+        boolean contains(double lat, double lng) {
+            return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+        }
+    }
+}
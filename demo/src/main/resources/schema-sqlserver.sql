@@ -0,0 +1,32 @@
+-- Spatial column for driver positions (Drivers.location, SRID 4326).
+-- Hibernate does not map it; it runs after ddl-auto has created the tables
+-- (spring.jpa.defer-datasource-initialization) and is safe to re-run.
+-- Batches are separated by GO lines: SQL Server compiles a whole batch before
+-- the new column exists, and CREATE TRIGGER must start its own batch.
+
+IF COL_LENGTH('Drivers', 'location') IS NULL
+    ALTER TABLE Drivers ADD location geography NULL
+GO
+
+UPDATE Drivers SET location = geography::Point(latitude, longitude, 4326)
+WHERE location IS NULL AND latitude BETWEEN -90 AND 90 AND longitude BETWEEN -180 AND 180
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'SIX_Drivers_location' AND object_id = OBJECT_ID('Drivers'))
+    CREATE SPATIAL INDEX SIX_Drivers_location ON Drivers(location) USING GEOGRAPHY_AUTO_GRID
+GO
+
+-- Keeps the point in step with every write of latitude/longitude: entity saves
+-- and the position buffer's batch updates alike. Coordinates out of range for
+-- geography are stored without a point.
+CREATE OR ALTER TRIGGER TR_Drivers_location ON Drivers AFTER INSERT, UPDATE AS
+BEGIN
+    SET NOCOUNT ON
+    IF UPDATE(latitude) OR UPDATE(longitude)
+        UPDATE d SET location = CASE
+                WHEN i.latitude BETWEEN -90 AND 90 AND i.longitude BETWEEN -180 AND 180
+                THEN geography::Point(i.latitude, i.longitude, 4326)
+            END
+        FROM Drivers d JOIN inserted i ON i.id = d.id
+END
+GO
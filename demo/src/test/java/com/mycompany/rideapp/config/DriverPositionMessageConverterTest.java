@@ -0,0 +1,123 @@
+package com.mycompany.rideapp.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mycompany.rideapp.dto.DriverPosition;
+
+class DriverPositionMessageConverterTest {
+    private final DriverPositionMessageConverter converter = new DriverPositionMessageConverter();
+
+    @Test
+    void roundTripsEveryField() {
+        DriverPosition position = position();
+
+        Message<?> message = converter.toMessage(position, new MessageHeaders(
+                Map.of(MessageHeaders.CONTENT_TYPE, DriverPositionMessageConverter.POSITION_FRAME)));
+        DriverPosition decoded = (DriverPosition) converter.fromMessage(message, DriverPosition.class);
+
+        assertEquals(position, decoded);
+    }
+
+    @Test
+    void unknownHeadingAndSpeedStayNull() {
+        DriverPosition position = position();
+        position.setHeading(null);
+        position.setSpeed(null);
+        position.setTimestamp(null);
+
+        DriverPosition decoded = DriverPositionMessageConverter.decode(
+                DriverPositionMessageConverter.encode(position), new DriverPosition());
+
+        assertNull(decoded.getHeading());
+        assertNull(decoded.getSpeed());
+        assertNull(decoded.getTimestamp());
+        assertEquals(position.getLat(), decoded.getLat());
+    }
+
+    @Test
+    void decodeReusesTheTarget() {
+        DriverPosition target = new DriverPosition();
+
+        DriverPosition decoded = DriverPositionMessageConverter.decode(
+                DriverPositionMessageConverter.encode(position()), target);
+
+        assertSame(target, decoded);
+        assertEquals("0f8fad5b-d9cb-469f-a165-70867728950e", target.getDriverId());
+    }
+
+    @Test
+    void fromMessageReusesOneInstancePerThread() {
+        DriverPosition other = position();
+        other.setDriverId("d2");
+        other.setHeading(null);
+        MessageHeaders headers = new MessageHeaders(
+                Map.of(MessageHeaders.CONTENT_TYPE, DriverPositionMessageConverter.POSITION_FRAME));
+
+        Object first = converter.fromMessage(converter.toMessage(position(), headers), DriverPosition.class);
+        Object second = converter.fromMessage(converter.toMessage(other, headers), DriverPosition.class);
+
+        assertSame(first, second);
+        assertEquals(other, second);
+    }
+
+    @Test
+    void jsonFramesAreLeftToTheJsonConverter() {
+        Message<byte[]> json = MessageBuilder.withPayload("{\"driverId\":\"d1\"}".getBytes())
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                .build();
+        Message<byte[]> untyped = MessageBuilder.withPayload("{\"driverId\":\"d1\"}".getBytes()).build();
+
+        assertNull(converter.fromMessage(json, DriverPosition.class));
+        assertNull(converter.fromMessage(untyped, DriverPosition.class));
+    }
+
+    @Test
+    void rejectsTruncatedFrames() {
+        byte[] frame = DriverPositionMessageConverter.encode(position());
+
+        assertThrows(MessageConversionException.class,
+                () -> DriverPositionMessageConverter.decode(Arrays.copyOf(frame, frame.length - 3),
+                        new DriverPosition()));
+    }
+
+    @Test
+    void frameIsSmallerThanJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        DriverPosition position = position();
+
+        int binary = DriverPositionMessageConverter.encode(position).length;
+        int json = objectMapper.writeValueAsBytes(position).length;
+
+        assertEquals(70, binary);
+        assertTrue(binary * 2 < json, binary + " bytes vs " + json + " bytes of JSON");
+    }
+
+    private static DriverPosition position() {
+        DriverPosition position = new DriverPosition();
+        position.setDriverId("0f8fad5b-d9cb-469f-a165-70867728950e");
+        position.setLat(10.762622);
+        position.setLng(106.660172);
+        // Exact in a float, the frame keeps heading and speed in 32 bits
+        position.setHeading(182.5);
+        position.setSpeed(11.25);
+        position.setTimestamp(Instant.ofEpochMilli(1_760_000_000_123L));
+        return position;
+    }
+}
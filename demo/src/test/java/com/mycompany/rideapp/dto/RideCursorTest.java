@@ -0,0 +1,43 @@
+package com.mycompany.rideapp.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.exception.BadRequest;
+
+class RideCursorTest {
+
+    @Test
+    void roundTrips() {
+        RideCursor cursor = new RideCursor(Date.valueOf("2026-03-14"), "3f2a9c1e-0000-4000-8000-000000000001");
+
+        assertEquals(cursor, RideCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsWithoutRideDate() {
+        RideCursor cursor = new RideCursor(null, "ride-1");
+
+        RideCursor decoded = RideCursor.decode(cursor.encode());
+
+        assertNull(decoded.getRideDate());
+        assertEquals("ride-1", decoded.getId());
+    }
+
+    @Test
+    void blankTokenMeansFirstPage() {
+        assertNull(RideCursor.decode(null));
+        assertNull(RideCursor.decode(" "));
+    }
+
+    @Test
+    void rejectsGarbage() {
+        assertThrows(BadRequest.class, () -> RideCursor.decode("not a cursor!"));
+        assertThrows(BadRequest.class, () -> RideCursor.decode("bm9zZXBhcmF0b3I"));
+    }
+}
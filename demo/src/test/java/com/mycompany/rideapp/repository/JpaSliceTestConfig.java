@@ -0,0 +1,15 @@
+package com.mycompany.rideapp.repository;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+
+// The application enables caching, the JPA slice has no cache manager
+@TestConfiguration
+class JpaSliceTestConfig {
+    @Bean
+    CacheManager cacheManager() {
+        return new NoOpCacheManager();
+    }
+}
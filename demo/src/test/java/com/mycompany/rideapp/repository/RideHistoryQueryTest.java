@@ -0,0 +1,152 @@
+package com.mycompany.rideapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.mycompany.rideapp.dto.RideCursor;
+import com.mycompany.rideapp.dto.RideListing;
+import com.mycompany.rideapp.entity.Driver;
+import com.mycompany.rideapp.entity.Ride;
+import com.mycompany.rideapp.entity.RideArchive;
+import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.entity.VehicleRegister;
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.enums.VehicleStatus;
+import com.mycompany.rideapp.repository.RideRepositoryCustom.HistoryScope;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.platform=h2",
+        "APP_NAME=ride-history-test"
+})
+@Import(JpaSliceTestConfig.class)
+class RideHistoryQueryTest {
+    @Autowired
+    private RideRepository rideRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Statistics statistics;
+    private User customer;
+    private Driver driver;
+    private int archivedCount;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getStatistics();
+
+        customer = entityManager.persist(User.builder().name("Customer").userName("customer").build());
+        User driverUser = entityManager.persist(User.builder().name("Driver").userName("driver").build());
+        driver = entityManager.persist(Driver.builder().user(driverUser).licenseNumber("B2").build());
+        entityManager.persist(VehicleRegister.builder().driver(driver).vehicleType("CAR").vehicleNumber("51A-123")
+                .vehicleBrand("Vios").status(VehicleStatus.INACTIVE).build());
+        entityManager.persist(VehicleRegister.builder().driver(driver).vehicleType("CAR").vehicleNumber("51A-456")
+                .vehicleBrand("Vios").status(VehicleStatus.ACTIVE).build());
+    }
+
+    @Test
+    void aPageCostsOneStatementPerTableWhateverItsSize() {
+        persistRides(3, 2);
+        statistics.clear();
+        assertEquals(5, rideRepository.findHistoryPage(HistoryScope.CUSTOMER, customer.getId(), null, 50).size());
+        long fewRides = statistics.getPrepareStatementCount();
+
+        persistRides(30, 10);
+        statistics.clear();
+        assertEquals(45, rideRepository.findHistoryPage(HistoryScope.CUSTOMER, customer.getId(), null, 50).size());
+
+        assertEquals(2, fewRides);
+        assertEquals(fewRides, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void userScopeSeeksTheArchiveOncePerRole() {
+        persistRides(5, 5);
+        statistics.clear();
+
+        assertEquals(10, rideRepository.findHistoryPage(HistoryScope.USER, driver.getId(), null, 50).size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void listingCarriesDriverVehicleAndCustomer() {
+        persistRides(1, 0);
+
+        RideListing listing = rideRepository.findHistoryPage(HistoryScope.DRIVER, driver.getId(), null, 10).get(0);
+
+        assertEquals(driver.getId(), listing.getDriverId());
+        assertEquals("Driver", listing.getDriverName());
+        assertEquals("51A-456", listing.getVehicleNumber());
+        assertEquals("Customer", listing.getCustomerName());
+        assertEquals(Status.FINISHED, listing.getStatus());
+    }
+
+    @Test
+    void keysetPagesCoverBothTablesNewestFirstWithoutGaps() {
+        persistRides(7, 6);
+
+        List<RideListing> seen = new ArrayList<>();
+        RideCursor cursor = null;
+        List<RideListing> page;
+        do {
+            page = rideRepository.findHistoryPage(HistoryScope.ALL, null, cursor, 4);
+            seen.addAll(page);
+            cursor = page.isEmpty() ? null : RideCursor.after(page.get(page.size() - 1));
+        } while (page.size() == 4);
+
+        assertEquals(13, seen.size());
+        assertEquals(13, seen.stream().map(RideListing::getId).distinct().count());
+        List<Date> dates = seen.stream().map(RideListing::getRideDate).collect(Collectors.toList());
+        for (int i = 1; i < dates.size(); i++) {
+            assertFalse(dates.get(i).after(dates.get(i - 1)));
+        }
+    }
+
+    @Test
+    void rideWithoutDriverHasNoDriverColumns() {
+        entityManager.persist(Ride.builder().customer(customer).status(Status.CANCELLED)
+                .rideDate(Date.valueOf(LocalDate.now())).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        RideListing listing = rideRepository.findHistoryPage(HistoryScope.CUSTOMER, customer.getId(), null, 10)
+                .get(0);
+
+        assertNull(listing.getDriverId());
+        assertNull(listing.getVehicleId());
+    }
+
+    private void persistRides(int hot, int archived) {
+        LocalDate day = LocalDate.of(2026, 1, 1);
+        for (int i = 0; i < hot; i++) {
+            entityManager.persist(Ride.builder().driver(driver).customer(customer).status(Status.FINISHED)
+                    .rideDate(Date.valueOf(day.plusDays(i % 4))).build());
+        }
+        for (int i = 0; i < archived; i++) {
+            entityManager.persist(RideArchive.builder().id("archived-" + archivedCount++)
+                    .driver(driver).customer(customer).status(Status.FINISHED)
+                    .rideDate(Date.valueOf(day.minusDays(i % 3))).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,109 @@
+package com.mycompany.rideapp.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.mycompany.rideapp.entity.Ride;
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.service.RideStateMachine;
+
+import lombok.extern.slf4j.Slf4j;
+
+// Rides are committed so that the racing threads see them
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.platform=h2",
+        "APP_NAME=ride-transition-test"
+})
+@Import(JpaSliceTestConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Slf4j
+class RideTransitionTest {
+    private static final int RIDES = 50;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @AfterEach
+    void tearDown() {
+        rideRepository.deleteAll();
+    }
+
+    @Test
+    void transitionBumpsTheVersionAndChecksIt() {
+        Ride ride = rideRepository.save(Ride.builder().status(Status.CONFIRMED).build());
+        assertEquals(0L, ride.getVersion());
+
+        assertEquals(0, move(ride.getId(), Status.PICKINGUP, 7L));
+        assertEquals(1, move(ride.getId(), Status.PICKINGUP, 0L));
+        assertEquals(0, move(ride.getId(), Status.FINISHED, null));
+        assertEquals(1, move(ride.getId(), Status.ONGOING, null));
+
+        Ride stored = rideRepository.findById(ride.getId()).orElseThrow();
+        assertEquals(Status.ONGOING, stored.getStatus());
+        assertEquals(2L, stored.getVersion());
+    }
+
+    @Test
+    void racingActionsHaveExactlyOneWinnerPerRide() throws Exception {
+        List<String> rideIds = new ArrayList<>();
+        for (int i = 0; i < RIDES; i++) {
+            rideIds.add(rideRepository.save(Ride.builder().status(Status.ONGOING).build()).getId());
+        }
+
+        // Half of the threads finish, the other half cancel, all on the same rides
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Status target = t % 2 == 0 ? Status.CANCELLED : Status.FINISHED;
+            Callable<Integer> racer = () -> {
+                start.await();
+                int won = 0;
+                for (String rideId : rideIds) {
+                    won += move(rideId, target, null);
+                }
+                return won;
+            };
+            results.add(pool.submit(racer));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        int wins = 0;
+        for (Future<Integer> result : results) {
+            wins += result.get(30, TimeUnit.SECONDS);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        pool.shutdown();
+        log.info("{} conditional updates on {} rides from {} threads in {} ms", RIDES * THREADS, RIDES, THREADS,
+                elapsedMs);
+
+        assertEquals(RIDES, wins);
+        for (String rideId : rideIds) {
+            assertEquals(1L, rideRepository.findById(rideId).orElseThrow().getVersion());
+        }
+    }
+
+    private int move(String rideId, Status target, Long expectedVersion) {
+        return rideRepository.transition(rideId, RideStateMachine.sourcesOf(target), target, expectedVersion);
+    }
+}
@@ -0,0 +1,77 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.mycompany.rideapp.dto.response.DriverResponse;
+import com.mycompany.rideapp.dto.response.RideResponse;
+import com.mycompany.rideapp.dto.response.UserResponse;
+import com.mycompany.rideapp.enums.Status;
+import com.mycompany.rideapp.mapper.RideMapper;
+import com.mycompany.rideapp.repository.RideRepository;
+
+class ActiveRideRegistryTest {
+    private final DriverPositionBuffer driverPositionBuffer = mock(DriverPositionBuffer.class);
+    private ActiveRideRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        registry = new ActiveRideRegistry(mock(RideRepository.class), mock(RideMapper.class), driverPositionBuffer,
+                mock(ObjectProvider.class));
+    }
+
+    @Test
+    void findsTheRideByEitherParticipant() {
+        registry.update(ride("r1", Status.CONFIRMED));
+
+        assertEquals("r1", registry.findByParticipant("driver1").getId());
+        assertEquals("r1", registry.findByParticipant("customer1").getId());
+        assertNull(registry.findByParticipant("someone-else"));
+    }
+
+    @Test
+    void terminalStatusDropsTheRide() {
+        registry.update(ride("r1", Status.ONGOING));
+        registry.update(ride("r1", Status.FINISHED));
+
+        assertNull(registry.findByParticipant("driver1"));
+        assertEquals(0, registry.size());
+
+        registry.update(ride("r2", Status.CONFIRMED));
+        registry.remove("r2");
+
+        assertNull(registry.findByParticipant("customer1"));
+    }
+
+    @Test
+    void readsOverlayTheBufferedDriverPositionWithoutTouchingTheSnapshot() {
+        registry.update(ride("r1", Status.PICKINGUP));
+        when(driverPositionBuffer.get("driver1")).thenReturn(new DriverPositionBuffer.BufferedPosition(10.5, 106.7));
+
+        RideResponse live = registry.findByParticipant("customer1");
+
+        assertEquals(10.5, live.getDriverLat());
+        assertEquals(106.7, live.getDriver().getLongitude());
+
+        when(driverPositionBuffer.get("driver1")).thenReturn(null);
+        assertEquals(1.0, registry.findByParticipant("customer1").getDriverLat());
+    }
+
+    private RideResponse ride(String id, Status status) {
+        return RideResponse.builder()
+                .id(id)
+                .status(status)
+                .driver(DriverResponse.builder().id("driver1").latitude(1.0).longitude(2.0).build())
+                .customer(UserResponse.builder().id("customer1").build())
+                .driverLat(1.0)
+                .driverLng(2.0)
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class AssignmentSolverTest {
+
+    @Test
+    void prefersGlobalOptimumOverGreedy() {
+        // Greedy would give ride 0 driver 0 (cost 1) and leave ride 1 with cost 100
+        double[][] cost = {
+                { 1, 2 },
+                { 3, 100 },
+        };
+
+        assertArrayEquals(new int[] { 1, 0 }, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    void forbiddenPairsAreLeftUnassigned() {
+        double[][] cost = {
+                { 5, AssignmentSolver.FORBIDDEN },
+                { 4, AssignmentSolver.FORBIDDEN },
+        };
+
+        int[] result = AssignmentSolver.solve(cost);
+
+        assertEquals(-1, result[0]);
+        assertEquals(0, result[1]);
+    }
+
+    @Test
+    void moreRidesThanDrivers() {
+        double[][] cost = {
+                { 10 },
+                { 2 },
+                { 7 },
+        };
+
+        assertArrayEquals(new int[] { -1, 0, -1 }, AssignmentSolver.solve(cost));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomMatrices() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int rows = 1 + random.nextInt(5);
+            int columns = 1 + random.nextInt(5);
+            double[][] cost = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    cost[i][j] = random.nextInt(4) == 0 ? AssignmentSolver.FORBIDDEN : random.nextInt(1000);
+                }
+            }
+
+            int[] result = AssignmentSolver.solve(cost);
+
+            Set<Integer> usedColumns = new HashSet<>();
+            for (int column : result) {
+                if (column >= 0) {
+                    assertEquals(true, usedColumns.add(column), "column assigned twice");
+                }
+            }
+            assertEquals(bruteForce(cost, 0, new boolean[columns]), score(cost, result), 1e-6);
+        }
+    }
+
+    // Score: every matched pair saves FORBIDDEN, so more matches always win, then lower cost
+    private static double score(double[][] cost, int[] result) {
+        double total = 0;
+        for (int row = 0; row < result.length; row++) {
+            if (result[row] >= 0) {
+                total += cost[row][result[row]] - AssignmentSolver.FORBIDDEN;
+            }
+        }
+        return total;
+    }
+
+    private static double bruteForce(double[][] cost, int row, boolean[] used) {
+        if (row == cost.length) {
+            return 0;
+        }
+        double best = bruteForce(cost, row + 1, used);
+        for (int column = 0; column < used.length; column++) {
+            if (!used[column] && cost[row][column] < AssignmentSolver.FORBIDDEN) {
+                used[column] = true;
+                best = Math.min(best, cost[row][column] - AssignmentSolver.FORBIDDEN + bruteForce(cost, row + 1, used));
+                used[column] = false;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.repository.UserRepository;
+
+class CustomerInfoCacheTest {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private CustomerInfoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getCustomerCache().setMaxSize(2);
+        cache = new CustomerInfoCache(userRepository, properties);
+    }
+
+    @Test
+    void repeatedLookupsHitTheDatabaseOnce() {
+        when(userRepository.findById("c1")).thenReturn(Optional.of(User.builder().name("An").build()));
+
+        assertEquals("An", cache.getDisplayName("c1"));
+        assertEquals("An", cache.getDisplayName("c1"));
+
+        verify(userRepository, times(1)).findById("c1");
+    }
+
+    @Test
+    void invalidateReloadsTheProfile() {
+        when(userRepository.findById("c1"))
+                .thenReturn(Optional.of(User.builder().name("An").build()))
+                .thenReturn(Optional.of(User.builder().name("Binh").build()));
+
+        cache.getDisplayName("c1");
+        cache.invalidate("c1");
+
+        assertEquals("Binh", cache.getDisplayName("c1"));
+    }
+
+    @Test
+    void unknownUsersAreNotCachedAndSizeIsBounded() {
+        when(userRepository.findById("missing")).thenReturn(Optional.empty());
+        for (String id : new String[] { "c1", "c2", "c3" }) {
+            when(userRepository.findById(id)).thenReturn(Optional.of(User.builder().name(id).build()));
+            cache.getDisplayName(id);
+        }
+
+        assertNull(cache.getDisplayName("missing"));
+        assertEquals(2, cache.size());
+    }
+}
@@ -0,0 +1,103 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.enums.DriverAvailability;
+
+class DriverAvailabilityRegistryTest {
+    private final ActiveRideRegistry activeRideRegistry = mock(ActiveRideRegistry.class);
+    private final DriverAvailabilityRegistry registry = new DriverAvailabilityRegistry(activeRideRegistry,
+            new InMemoryOfferStore(), new DispatchProperties());
+
+    @Test
+    void driverHoldsOneOfferUntilReleased() {
+        assertTrue(registry.tryOffer("d1", "r1"));
+        assertTrue(registry.tryOffer("d1", "r1"));
+        assertFalse(registry.tryOffer("d1", "r2"));
+        assertEquals(DriverAvailability.OFFERED, registry.stateOf("d1"));
+
+        // Releasing another ride's offer keeps the claim
+        registry.release("d1", "r2");
+        assertFalse(registry.isIdle("d1"));
+
+        registry.release("d1", "r1");
+        assertTrue(registry.isIdle("d1"));
+        assertTrue(registry.tryOffer("d1", "r2"));
+    }
+
+    @Test
+    void driversOnATripCannotBeOffered() {
+        when(activeRideRegistry.hasActiveRide("d1")).thenReturn(true);
+
+        assertEquals(DriverAvailability.ON_TRIP, registry.stateOf("d1"));
+        assertFalse(registry.tryOffer("d1", "r1"));
+    }
+
+    @Test
+    void offersLapseAfterTwoRetryIntervals() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getScheduler().setRetryIntervalMs(0);
+        DriverAvailabilityRegistry lapsing = new DriverAvailabilityRegistry(activeRideRegistry,
+                new InMemoryOfferStore(), properties);
+
+        assertTrue(lapsing.tryOffer("d1", "r1"));
+        assertTrue(lapsing.isIdle("d1"));
+        assertTrue(lapsing.tryOffer("d1", "r2"));
+    }
+
+    @Test
+    void lapsedClaimsAreEvicted() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getScheduler().setRetryIntervalMs(0);
+        InMemoryOfferStore offerStore = new InMemoryOfferStore();
+        DriverAvailabilityRegistry lapsing = new DriverAvailabilityRegistry(activeRideRegistry, offerStore,
+                properties);
+        lapsing.tryOffer("d1", "r1");
+        lapsing.tryOffer("d2", "r2");
+
+        // Read after its TTL
+        assertTrue(lapsing.isIdle("d1"));
+        assertEquals(1, offerStore.claimCount());
+
+        // Never read again, left to the sweep
+        offerStore.evictExpired(System.currentTimeMillis());
+        assertEquals(0, offerStore.claimCount());
+    }
+
+    @Test
+    void concurrentClaimsHaveOneWinner() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> claims = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String rideRequestId = "r" + i;
+            claims.add(pool.submit(() -> {
+                start.await();
+                return registry.tryOffer("d1", rideRequestId);
+            }));
+        }
+        start.countDown();
+
+        int won = 0;
+        for (Future<Boolean> claim : claims) {
+            won += claim.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        pool.shutdown();
+        assertEquals(1, won);
+    }
+}
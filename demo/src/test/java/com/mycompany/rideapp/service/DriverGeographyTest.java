@@ -0,0 +1,59 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+class DriverGeographyTest {
+
+    @Test
+    void cityBoxesGoThroughThePolygon() {
+        assertTrue(DriverGeography.fitsPolygon(10.7, 10.9, 106.6, 106.8));
+        assertEquals("POLYGON((106.6 10.7, 106.8 10.7, 106.8 10.9, 106.6 10.9, 106.6 10.7))",
+                DriverGeography.box(10.7, 10.9, 106.6, 106.8));
+    }
+
+    @Test
+    void zoomedOutBoxesUseTheCoordinateQuery() {
+        // Clamped at a pole
+        assertFalse(DriverGeography.fitsPolygon(-90, 45, 0, 90));
+        // Whole band after crossing the antimeridian
+        assertFalse(DriverGeography.fitsPolygon(-20, 20, -180, 180));
+        // Half the globe in longitude
+        assertFalse(DriverGeography.fitsPolygon(-20, 20, -100, 100));
+    }
+
+    @Test
+    void schemaScriptRunsEachBatchOnItsOwn() throws Exception {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.getUpdateCount()).thenReturn(-1);
+
+        // Same separator as spring.sql.init.separator
+        ScriptUtils.executeSqlScript(connection, new EncodedResource(new ClassPathResource("schema-sqlserver.sql")),
+                false, false, ScriptUtils.DEFAULT_COMMENT_PREFIX, "\nGO\n",
+                ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement, atLeastOnce()).execute(sql.capture());
+        List<String> batches = sql.getAllValues();
+        assertEquals(4, batches.size());
+        assertTrue(batches.get(0).contains("ADD location geography"));
+        assertTrue(batches.get(3).startsWith("CREATE OR ALTER TRIGGER TR_Drivers_location"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.VehicleType;
+
+public class DriverLocationIndexTest {
+
+    private DriverLocationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DriverLocationIndex(new DispatchProperties());
+    }
+
+    @Test
+    void testFindNearestOrdersByDistance() {
+        index.upsert("far", 10.80, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("near", 10.7701, 106.7001, EnumSet.of(VehicleType.CAR));
+        index.upsert("mid", 10.78, 106.70, EnumSet.of(VehicleType.CAR));
+
+        List<String> ids = ids(index.findNearest(10.77, 106.70, 3, VehicleType.CAR));
+
+        assertEquals(List.of("near", "mid", "far"), ids);
+    }
+
+    @Test
+    void testFindNearestFiltersVehicleType() {
+        index.upsert("car", 10.77, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("bike", 10.7701, 106.7001, EnumSet.of(VehicleType.MOTORBIKE));
+
+        assertEquals(List.of("bike"), ids(index.findNearest(10.77, 106.70, 5, VehicleType.MOTORBIKE)));
+        assertEquals(List.of("car"), ids(index.findNearest(10.77, 106.70, 5, VehicleType.CAR)));
+    }
+
+    @Test
+    void testMoveAndRemove() {
+        index.upsert("d1", 10.77, 106.70, EnumSet.of(VehicleType.CAR));
+
+        assertTrue(index.move("d1", 10.90, 106.90));
+        assertFalse(index.move("unknown", 10.90, 106.90));
+        assertEquals(List.of("d1"), ids(index.findNearest(10.90, 106.90, 1, VehicleType.CAR)));
+
+        index.remove("d1");
+        assertTrue(index.findNearest(10.90, 106.90, 1, VehicleType.CAR).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testMatchesBruteForce() {
+        Random random = new Random(42);
+        double[][] positions = new double[2000][];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new double[] { 10.6 + random.nextDouble() * 0.4, 106.5 + random.nextDouble() * 0.4 };
+            index.upsert("d" + i, positions[i][0], positions[i][1], EnumSet.of(VehicleType.CAR));
+        }
+
+        double lat = 10.8;
+        double lng = 106.7;
+        List<NearbyDriver> result = index.findNearest(lat, lng, 10, VehicleType.CAR);
+
+        List<Double> expected = java.util.Arrays.stream(positions)
+                .map(p -> DriverLocationIndex.distanceMeters(lat, lng, p[0], p[1]))
+                .sorted()
+                .limit(10)
+                .collect(Collectors.toList());
+        List<Double> actual = result.stream().map(NearbyDriver::getDistanceMeters).collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void testFindNearestStopsAtSearchRadius() {
+        index.upsert("far", 11.50, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("farther", 12.50, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("bike", 11.40, 106.70, EnumSet.of(VehicleType.MOTORBIKE));
+
+        // ~80 km away, beyond the 20 km rings
+        assertTrue(index.findNearest(10.77, 106.70, 2, VehicleType.CAR).isEmpty());
+        assertEquals(List.of("far"), ids(index.findNearest(11.45, 106.70, 2, VehicleType.CAR)));
+    }
+
+    @Test
+    void testFindInBox() {
+        index.upsert("inside", 10.77, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("edge", 10.7999, 106.6501, EnumSet.of(VehicleType.MOTORBIKE));
+        index.upsert("north", 10.81, 106.70, EnumSet.of(VehicleType.CAR));
+        index.upsert("east", 10.77, 106.76, EnumSet.of(VehicleType.CAR));
+
+        List<String> ids = ids(index.findInBox(10.75, 10.80, 106.65, 106.75, 10));
+
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of("inside", "edge")));
+        assertEquals(1, index.findInBox(10.75, 10.80, 106.65, 106.75, 1).size());
+    }
+
+    private List<String> ids(List<NearbyDriver> drivers) {
+        return drivers.stream().map(NearbyDriver::getDriverId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,36 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+class DriverPositionBufferTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DriverPositionBuffer buffer = new DriverPositionBuffer(jdbcTemplate, new DispatchProperties());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesOnlyTheLatestPositionPerDriver() {
+        buffer.record("driver1", 10.70, 106.60);
+        buffer.record("driver1", 10.77, 106.70);
+
+        buffer.flush();
+
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE Drivers SET latitude = ?, longitude = ? WHERE id = ?"),
+                args.capture());
+        assertEquals(1, args.getValue().size());
+        assertArrayEquals(new Object[] { 10.77, 106.70, "driver1" }, args.getValue().get(0));
+        assertEquals(0, buffer.pendingCount());
+    }
+}
@@ -0,0 +1,130 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.AccountStatus;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DriverPresenceTrackerTest {
+    private static final long TIMEOUT_MS = 30000;
+
+    private final InMemoryDriverPresenceStore presenceStore = new InMemoryDriverPresenceStore();
+    private final DriverLocationStore driverLocationStore = mock(DriverLocationStore.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DriverStatusCounters counters = new DriverStatusCounters(meterRegistry);
+    private final ViewportRegistry viewportRegistry = mock(ViewportRegistry.class);
+    private final DriverPresenceTracker tracker = new DriverPresenceTracker(presenceStore, driverLocationStore,
+            viewportRegistry, counters, properties(), meterRegistry);
+
+    @Test
+    void silentDriversAreFilteredAndSweptOut() {
+        tracker.heartbeat("d1", null);
+        presenceStore.touch("d2", System.currentTimeMillis() - TIMEOUT_MS - 1);
+
+        List<NearbyDriver> online = tracker.filterOnline(List.of(nearby("d2"), nearby("d1"), nearby("d3")));
+
+        assertEquals(List.of("d1"), online.stream().map(NearbyDriver::getDriverId).toList());
+        assertEquals(1, tracker.sweep(System.currentTimeMillis()));
+        verify(driverLocationStore).remove("d2");
+        verify(driverLocationStore, never()).remove("d1");
+        verify(viewportRegistry).onDriverRemoved("d2");
+    }
+
+    @Test
+    void seedingKeepsNewerHeartbeats() {
+        long stale = System.currentTimeMillis() - TIMEOUT_MS - 1;
+        presenceStore.touch("d1", stale);
+        tracker.seed("d1");
+        tracker.seed("d2");
+
+        assertFalse(tracker.isOnline("d1"));
+        assertTrue(tracker.isOnline("d2"));
+    }
+
+    @Test
+    void driverGoesOfflineWhenItsLastSessionDisconnects() {
+        tracker.onConnect(new SessionConnectEvent(this, connect("s1", "d1")));
+        tracker.heartbeat("d1", "s2");
+
+        tracker.onDisconnect(disconnect("s1"));
+        assertTrue(tracker.isOnline("d1"));
+
+        tracker.onDisconnect(disconnect("s2"));
+        assertFalse(tracker.isOnline("d1"));
+        verify(driverLocationStore).remove("d1");
+    }
+
+    @Test
+    void reboundSessionLeavesThePreviousDriver() {
+        tracker.onConnect(new SessionConnectEvent(this, connect("s1", "d1")));
+        tracker.heartbeat("d1", "s2");
+
+        // s1 logs in as another driver, d1 is left with s2 only
+        tracker.heartbeat("d2", "s1");
+        assertTrue(tracker.isOnline("d1"));
+
+        tracker.onDisconnect(disconnect("s2"));
+        assertFalse(tracker.isOnline("d1"));
+        assertTrue(tracker.isOnline("d2"));
+
+        tracker.heartbeat("d3", "s1");
+        assertFalse(tracker.isOnline("d2"));
+        verify(driverLocationStore).remove("d2");
+    }
+
+    @Test
+    void gaugesSplitActiveDriversByHeartbeat() {
+        counters.record("d1", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+        counters.record("d2", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+        counters.record("d3", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+        tracker.heartbeat("d1", null);
+
+        assertEquals(1.0, meterRegistry.get("drivers.presence").tag("state", "online").gauge().value());
+        assertEquals(2.0, meterRegistry.get("drivers.presence").tag("state", "offline").gauge().value());
+    }
+
+    private static DispatchProperties properties() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPresence().setTimeoutMs(TIMEOUT_MS);
+        return properties;
+    }
+
+    private static NearbyDriver nearby(String driverId) {
+        return NearbyDriver.builder().driverId(driverId).build();
+    }
+
+    private static Message<byte[]> connect(String sessionId, String driverId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setNativeHeader("driverId", driverId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return new SessionDisconnectEvent(this, MessageBuilder.createMessage(new byte[0],
+                accessor.getMessageHeaders()), sessionId, CloseStatus.NORMAL);
+    }
+}
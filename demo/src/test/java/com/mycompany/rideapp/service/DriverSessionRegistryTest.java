@@ -0,0 +1,84 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DriverSessionRegistryTest {
+    private final DriverPresenceTracker presenceTracker = mock(DriverPresenceTracker.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DriverSessionRegistry registry = new DriverSessionRegistry(presenceTracker,
+            new DispatchProperties(), meterRegistry);
+
+    @Test
+    void driverIsConnectedWhileAnySubscriptionIsLive() {
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-0", "/topic/driver/d1")));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s2", "sub-0", "/topic/driver/d1")));
+        verify(presenceTracker).heartbeat("d1", "s1");
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s1", "sub-0")));
+        assertTrue(registry.isConnected("d1"));
+
+        registry.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s2", null), "s2",
+                CloseStatus.NORMAL));
+        assertFalse(registry.isConnected("d1"));
+        assertFalse(registry.isReachable("d1"));
+    }
+
+    @Test
+    void onlyTheDriversOwnTopicCounts() {
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-0", "/topic/driver/d1/updatePos")));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-1", "/topic/customer/c1")));
+        registry.onSubscribe(new SessionSubscribeEvent(this, subscribe("s1", "sub-2", "/topic/driver/d2")));
+
+        assertFalse(registry.isConnected("d1"));
+        assertTrue(registry.isConnected("d2"));
+        assertEquals(1.0, meterRegistry.get("drivers.connected").gauge().value());
+        assertNull(DriverSessionRegistry.driverIdOf("/topic/driver/"));
+    }
+
+    @Test
+    void everyoneIsReachableWithoutTheSubscriptionCheck() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPresence().setRequireSubscription(false);
+        DriverSessionRegistry lenient = new DriverSessionRegistry(presenceTracker, properties,
+                new SimpleMeterRegistry());
+
+        assertTrue(lenient.isReachable("d1"));
+        assertFalse(lenient.isConnected("d1"));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
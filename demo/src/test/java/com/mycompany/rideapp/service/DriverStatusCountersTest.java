@@ -0,0 +1,63 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.enums.AccountStatus;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DriverStatusCountersTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DriverStatusCounters counters = new DriverStatusCounters(meterRegistry);
+
+    @Test
+    void statusTransitionsMoveTheCounts() {
+        counters.record("d1", AccountStatus.PENDING, Set.of());
+        counters.record("d1", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+        counters.record("d2", AccountStatus.ACTIVE, Set.of(VehicleType.CAR, VehicleType.MOTORBIKE));
+
+        assertEquals(0, counters.count(AccountStatus.PENDING));
+        assertEquals(2, counters.count(AccountStatus.ACTIVE));
+        assertEquals(2, counters.countActive(VehicleType.CAR));
+        assertEquals(1, counters.countActive(VehicleType.MOTORBIKE));
+
+        counters.record("d2", AccountStatus.INACTIVE, Set.of(VehicleType.CAR, VehicleType.MOTORBIKE));
+
+        assertEquals(1, counters.count(AccountStatus.ACTIVE));
+        assertEquals(1, counters.count(AccountStatus.INACTIVE));
+        assertEquals(1, counters.countActive(VehicleType.CAR));
+        assertEquals(0, counters.countActive(VehicleType.MOTORBIKE));
+        assertEquals(AccountStatus.INACTIVE, counters.statusOf("d2"));
+        assertNull(counters.statusOf("unknown"));
+    }
+
+    @Test
+    void repeatedRecordsAreIdempotent() {
+        counters.record("d1", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+        counters.record("d1", AccountStatus.ACTIVE, Set.of(VehicleType.CAR));
+
+        assertEquals(1, counters.count(AccountStatus.ACTIVE));
+        assertEquals(1, counters.countActive(VehicleType.CAR));
+    }
+
+    @Test
+    void resetReplacesEverythingAndFeedsTheGauges() {
+        counters.record("old", AccountStatus.BANNED, Set.of());
+
+        counters.reset(Map.of("d1", AccountStatus.ACTIVE, "d2", AccountStatus.ACTIVE, "d3", AccountStatus.PENDING),
+                Map.of("d1", Set.of(VehicleType.MOTORBIKE), "d3", Set.of(VehicleType.CAR)));
+
+        assertEquals(0, counters.count(AccountStatus.BANNED));
+        assertEquals(2.0, meterRegistry.get("drivers.status").tag("status", "ACTIVE").gauge().value());
+        assertEquals(1.0, meterRegistry.get("drivers.active.vehicle.type").tag("type", "MOTORBIKE").gauge().value());
+        // d3 is not ACTIVE, so its car does not count
+        assertEquals(0.0, meterRegistry.get("drivers.active.vehicle.type").tag("type", "CAR").gauge().value());
+    }
+}
@@ -0,0 +1,54 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HashedTimingWheelTest {
+
+    @Test
+    void testItemsFireInTheirTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250, 0);
+        wheel.schedule("b", 300, 0);
+        wheel.schedule("c", 1000, 0);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a", "b"), wheel.advance(300));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("c"), wheel.advance(1000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testDelaysLongerThanOneRoundWaitForTheirRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 4, 0);
+        wheel.schedule("late", 1000, 0);
+
+        assertTrue(wheel.advance(900).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(1000));
+    }
+
+    @Test
+    void testBatchesEverythingDueWhenTicksWereMissed() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule("ride" + i, 100 + i * 10, 0);
+        }
+
+        assertEquals(100, wheel.advance(5000).size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testLagReflectsUnprocessedTicks() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+        wheel.advance(100);
+
+        assertEquals(0, wheel.lagMs(150));
+        assertEquals(300, wheel.lagMs(500));
+    }
+}
@@ -0,0 +1,35 @@
+package com.mycompany.rideapp.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Transaction manager without a resource. Unlike a mock it drives the
+ * synchronization callbacks (afterCommit, afterCompletion) the real one would.
+ */
+class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+    final AtomicInteger commits = new AtomicInteger();
+    final AtomicInteger rollbacks = new AtomicInteger();
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        commits.incrementAndGet();
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        rollbacks.incrementAndGet();
+    }
+}
@@ -0,0 +1,131 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.config.DriverPositionMessageConverter;
+import com.mycompany.rideapp.dto.DriverPosition;
+import com.mycompany.rideapp.dto.RideNotification;
+import com.mycompany.rideapp.entity.Driver;
+import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.enums.RideRequestCancelReason;
+import com.mycompany.rideapp.enums.Status;
+
+class NotificationServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final DispatchProperties properties = new DispatchProperties();
+    private final DriverPositionBuffer driverPositionBuffer = mock(DriverPositionBuffer.class);
+    private final NotificationService notificationService = new NotificationService(messagingTemplate,
+            driverPositionBuffer, objectMapper, properties);
+
+    @Test
+    void eventsAreSentAsJsonWithTheirType() throws Exception {
+        notificationService.notifyDriverPositionUpdate(position("d1", 10.5, 106.7));
+
+        Message<?> message = sent(1).get(0);
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        JsonNode json = objectMapper.readTree((byte[]) message.getPayload());
+        assertEquals("DRIVER_POSITION_UPDATE", json.get("type").asText());
+        assertEquals("d1", json.get("driverId").asText());
+        assertEquals(106.7, json.get("lng").asDouble());
+    }
+
+    @Test
+    void binaryEchoSendsPositionFrames() {
+        properties.getPosition().setBinaryEcho(true);
+
+        notificationService.notifyDriverPositionUpdate(position("d1", 10.5, 106.7));
+
+        Message<?> message = sent(1).get(0);
+        assertEquals(DriverPositionMessageConverter.POSITION_FRAME,
+                message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        DriverPosition decoded = DriverPositionMessageConverter.decode((byte[]) message.getPayload(),
+                new DriverPosition());
+        assertEquals("d1", decoded.getDriverId());
+        assertEquals(10.5, decoded.getLat());
+    }
+
+    @Test
+    void statusUpdateWithoutDriverLeavesDriverFieldsOut() throws Exception {
+        notificationService.notifyRideStatusUpdate("c1", "ride1", Status.FINISHED, null);
+
+        JsonNode json = objectMapper.readTree((byte[]) sent(1).get(0).getPayload());
+        assertEquals("RIDE_STATUS_UPDATE", json.get("type").asText());
+        assertEquals("FINISHED", json.get("status").asText());
+        assertFalse(json.has("driverId"));
+    }
+
+    @Test
+    void acceptedRideCarriesBufferedPositionWithoutTouchingTheDriver() throws Exception {
+        Driver driver = new Driver();
+        driver.setId("d1");
+        driver.setLatitude(10.0);
+        driver.setLongitude(106.0);
+        driver.setUser(new User());
+        when(driverPositionBuffer.get("d1")).thenReturn(new DriverPositionBuffer.BufferedPosition(10.5, 106.7));
+
+        notificationService.notifyRideAccepted("c1", driver, "ride1");
+
+        JsonNode json = objectMapper.readTree((byte[]) sent(1).get(0).getPayload());
+        assertEquals(10.5, json.get("driverLat").asDouble());
+        assertEquals(106.7, json.get("driverLng").asDouble());
+        // A managed entity would otherwise be flushed with a full-row UPDATE
+        assertEquals(10.0, driver.getLatitude());
+        assertEquals(106.0, driver.getLongitude());
+    }
+
+    @Test
+    void withdrawnOfferTellsTheDriverWhy() throws Exception {
+        notificationService.notifyDriverRideRequestCancelled("d1", "r1", RideRequestCancelReason.TAKEN);
+
+        JsonNode json = objectMapper.readTree((byte[]) sent(1).get(0).getPayload());
+        assertEquals("RIDE_REQUEST_CANCELLED", json.get("type").asText());
+        assertEquals("TAKEN", json.get("reason").asText());
+        assertEquals("Another driver has already accepted this ride request", json.get("message").asText());
+    }
+
+    @Test
+    void fanOutIsEncodedOnce() {
+        RideNotification notification = RideNotification.builder().rideRequestId("r1").build();
+
+        notificationService.sendRideRequestToDrivers(List.of("d1", "d2", "d3"), notification);
+
+        List<Message<?>> messages = sent(3);
+        assertSame(messages.get(0).getPayload(), messages.get(1).getPayload());
+        assertSame(messages.get(0).getPayload(), messages.get(2).getPayload());
+    }
+
+    private static DriverPosition position(String driverId, double lat, double lng) {
+        DriverPosition position = new DriverPosition();
+        position.setDriverId(driverId);
+        position.setLat(lat);
+        position.setLng(lng);
+        return position;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private List<Message<?>> sent(int count) {
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(count)).send(anyString(), captor.capture());
+        return (List) captor.getAllValues();
+    }
+}
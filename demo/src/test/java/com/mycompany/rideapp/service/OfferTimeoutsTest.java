@@ -0,0 +1,96 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OfferTimeoutsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> expired = new ArrayList<>();
+    private final InMemoryOfferStore offerStore = new InMemoryOfferStore();
+    private OfferTimeouts timeouts;
+
+    @BeforeEach
+    void setUp() {
+        timeouts = create(false);
+    }
+
+    @Test
+    void unansweredOfferExpiresAfterTheDecisionTimeout() {
+        timeouts.track("r1", "d1");
+
+        timeouts.tick(now() + 1000);
+        assertTrue(expired.isEmpty());
+
+        timeouts.tick(now() + 1500);
+        assertEquals(List.of("r1:d1:DECISION"), expired);
+        assertEquals(0, offerStore.offerCount());
+        assertEquals(1.0, meterRegistry.get("dispatch.offer.timeouts").tag("reason", "DECISION").counter().count());
+    }
+
+    @Test
+    void resolvedOffersNeverExpire() {
+        timeouts.track("r1", "d1");
+        timeouts.track("r2", "d2");
+        timeouts.resolve("r1", "d1");
+        timeouts.forget("r2");
+
+        timeouts.tick(now() + 5000);
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    void deliveryDeadlineAppliesOnceTheClientHasAcked() {
+        // Without any ACK from the driver so far only the decision deadline runs
+        timeouts.track("r1", "d1");
+        timeouts.tick(now() + 600);
+        assertTrue(expired.isEmpty());
+
+        assertTrue(timeouts.acknowledge("r1", "d1"));
+        timeouts.track("r2", "d1");
+        // The wheel already went past now + 600
+        timeouts.tick(now() + 1000);
+        assertEquals(List.of("r2:d1:DELIVERY"), expired);
+    }
+
+    @Test
+    void acknowledgedOfferOnlyHasTheDecisionDeadline() {
+        timeouts = create(true);
+        timeouts.track("r1", "d1");
+        timeouts.track("r2", "d2");
+        assertTrue(timeouts.acknowledge("r1", "d1"));
+        assertFalse(timeouts.acknowledge("r3", "d1"));
+
+        timeouts.tick(now() + 600);
+        assertEquals(List.of("r2:d2:DELIVERY"), expired);
+
+        timeouts.tick(now() + 1500);
+        assertEquals(List.of("r2:d2:DELIVERY", "r1:d1:DECISION"), expired);
+    }
+
+    private OfferTimeouts create(boolean ackRequired) {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getOffer().setAckRequired(ackRequired);
+        properties.getOffer().setDeliveryTimeoutMs(500);
+        properties.getOffer().setDecisionTimeoutMs(1200);
+        properties.getOffer().setTickMs(100);
+        OfferTimeouts offerTimeouts = new OfferTimeouts(offerStore, properties, meterRegistry);
+        offerTimeouts.setHandler((rideRequestId, driverId, reason) -> expired
+                .add(rideRequestId + ":" + driverId + ":" + reason));
+        return offerTimeouts;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,132 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Two nodes, each with its own simple broker, joined by a stand-in for the
+ * Redis channel that delivers every publish to all nodes, the publisher
+ * included, like Redis pub/sub does.
+ */
+class RedisBrokerBridgeTest {
+    private final List<Node> nodes = new ArrayList<>();
+    private final StringRedisTemplate redis = new StringRedisTemplate() {
+        @Override
+        public Long convertAndSend(String channel, Object message) {
+            byte[] body = ((String) message).getBytes(StandardCharsets.UTF_8);
+            nodes.forEach(node -> node.bridge.deliver(body));
+            return (long) nodes.size();
+        }
+    };
+    private final Node nodeA = new Node();
+    private final Node nodeB = new Node();
+
+    @Test
+    void subscribersOnEveryNodeGetTheMessage() {
+        nodeA.subscribe("s-a", "/topic/driver/d1");
+        nodeB.subscribe("s-b", "/topic/driver/d1");
+        nodeB.subscribe("s-c", "/topic/driver/d2");
+
+        nodeA.template.convertAndSend("/topic/driver/d1", "{\"type\":\"RIDE_REQUEST\"}");
+
+        assertEquals(1, nodeA.delivered.size());
+        assertEquals(1, nodeB.delivered.size());
+        Message<?> remote = nodeB.delivered.get(0);
+        assertEquals("s-b", SimpMessageHeaderAccessor.getSessionId(remote.getHeaders()));
+        assertArrayEquals((byte[]) nodeA.delivered.get(0).getPayload(), (byte[]) remote.getPayload());
+    }
+
+    @Test
+    void relayedMessagesAreNotPublishedAgain() {
+        nodeB.subscribe("s-b", "/topic/customer/c1");
+
+        nodeA.template.convertAndSend("/topic/customer/c1", "{\"type\":\"RIDE_ACCEPTED\"}");
+
+        assertEquals(1.0, nodeA.counter("out"));
+        assertEquals(0.0, nodeA.counter("in"));
+        assertEquals(0.0, nodeB.counter("out"));
+        assertEquals(1.0, nodeB.counter("in"));
+        assertEquals(1, nodeB.delivered.size());
+    }
+
+    @Test
+    void burstOfUpdatesArrivesInOrder() {
+        nodeB.subscribe("s-b", "/topic/driver/d1/updatePos");
+        int messages = 20_000;
+
+        for (int i = 0; i < messages; i++) {
+            nodeA.template.convertAndSend("/topic/driver/d1/updatePos", String.valueOf(i));
+        }
+
+        assertEquals(messages, nodeB.delivered.size());
+        for (int i = 0; i < messages; i++) {
+            assertEquals(String.valueOf(i),
+                    new String((byte[]) nodeB.delivered.get(i).getPayload(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private final class Node {
+        private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        private final List<Message<?>> delivered = Collections.synchronizedList(new ArrayList<>());
+        private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final SimpleBrokerMessageHandler broker;
+        private final SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+        private final RedisBrokerBridge bridge;
+
+        private Node() {
+            ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+            clientOutbound.subscribe(message -> {
+                if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+                    delivered.add(message);
+                }
+            });
+            broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound,
+                    brokerChannel, List.of("/topic", "/queue"));
+            broker.start();
+            // Serialize to bytes like the application's broker template does
+            template.setMessageConverter(new StringMessageConverter());
+            bridge = new RedisBrokerBridge(redis, mock(RedisConnectionFactory.class), new ObjectMapper(), template,
+                    meterRegistry);
+            brokerChannel.addInterceptor(bridge);
+            nodes.add(this);
+        }
+
+        private void subscribe(String sessionId, String destination) {
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId("sub-0");
+            accessor.setDestination(destination);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+
+        private double counter(String direction) {
+            return meterRegistry.get("websocket.bridge.messages").tag("direction", direction).counter().count();
+        }
+    }
+}
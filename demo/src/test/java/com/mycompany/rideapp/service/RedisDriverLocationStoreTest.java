@@ -0,0 +1,158 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.NearbyDriver;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the store against a real redis-server, so the Lua scripts and GEO
+ * commands are exercised as they are in production.
+ */
+class RedisDriverLocationStoreTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final RedisDriverLocationStore store = new RedisDriverLocationStore(redisTemplate,
+            new DispatchProperties());
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = RedisServer.newRedisServer().port(port).setting("bind 127.0.0.1").build();
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        store.clear();
+    }
+
+    @Test
+    void upsertMoveAndRemove() {
+        store.upsert("d1", 10.77, 106.70, EnumSet.of(VehicleType.CAR, VehicleType.MOTORBIKE));
+        store.upsert("d2", 10.80, 106.70, EnumSet.of(VehicleType.CAR));
+
+        assertTrue(store.move("d1", 10.79, 106.70));
+        assertEquals(List.of("d1", "d2"), ids(store.findNearest(10.79, 106.70, 5, null)));
+        assertEquals(List.of("d1"), ids(store.findNearest(10.79, 106.70, 5, VehicleType.MOTORBIKE)));
+
+        // Dropping a vehicle type takes the driver out of that partition
+        store.upsert("d1", 10.79, 106.70, EnumSet.of(VehicleType.CAR));
+        assertEquals(List.of(), ids(store.findNearest(10.79, 106.70, 5, VehicleType.MOTORBIKE)));
+
+        store.remove("d1");
+        assertFalse(store.contains("d1"));
+        assertFalse(store.move("d1", 10.79, 106.70));
+        assertEquals(List.of("d2"), ids(store.findNearest(10.79, 106.70, 5, null)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void findNearestStopsAtSearchRadius() {
+        store.upsert("far", 11.50, 106.70, EnumSet.of(VehicleType.CAR));
+        store.upsert("farther", 12.50, 106.70, EnumSet.of(VehicleType.CAR));
+
+        assertTrue(store.findNearest(10.77, 106.70, 5, VehicleType.CAR).isEmpty());
+        assertEquals(List.of("far"), ids(store.findNearest(11.45, 106.70, 5, VehicleType.CAR)));
+    }
+
+    @Test
+    void restartingNodeKeepsLivePositionsOfOtherNodes() {
+        store.upsert("live", 10.79, 106.70, EnumSet.of(VehicleType.CAR));
+        RedisDriverLocationStore restarted = new RedisDriverLocationStore(redisTemplate, new DispatchProperties());
+
+        // The database row is a flush interval behind
+        restarted.seed("live", 10.70, 106.70, EnumSet.of(VehicleType.CAR));
+        restarted.seed("idle", 10.78, 106.70, EnumSet.of(VehicleType.CAR));
+
+        List<NearbyDriver> nearest = store.findNearest(10.79, 106.70, 5, null);
+        assertEquals(List.of("live", "idle"), ids(nearest));
+        assertEquals(10.79, nearest.get(0).getLatitude(), 1e-4);
+    }
+
+    @Test
+    void removeClearsMembersWithoutATypesEntry() {
+        // What an interleaved move used to leave behind
+        redisTemplate.opsForGeo().add("drivers:geo:CAR", new Point(106.70, 10.77), "ghost");
+
+        store.remove("ghost");
+
+        assertEquals(List.of(), ids(store.findInBox(10.7, 10.8, 106.6, 106.8, 10)));
+    }
+
+    @Test
+    void concurrentMovesNeverResurrectRemovedDrivers() throws InterruptedException {
+        int drivers = 200;
+        for (int i = 0; i < drivers; i++) {
+            store.upsert("d" + i, 10.77, 106.70, Set.of(VehicleType.CAR));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        executor.submit(() -> {
+            start.await();
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < drivers; i++) {
+                    store.move("d" + i, 10.77 + round * 0.001, 106.70);
+                }
+            }
+            return null;
+        });
+        executor.submit(() -> {
+            start.await();
+            for (int i = 0; i < drivers; i++) {
+                store.remove("d" + i);
+            }
+            return null;
+        });
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, store.size());
+        assertEquals(List.of(), ids(store.findNearest(10.77, 106.70, drivers, null)));
+    }
+
+    private static List<String> ids(List<NearbyDriver> drivers) {
+        return drivers.stream().map(NearbyDriver::getDriverId).toList();
+    }
+}
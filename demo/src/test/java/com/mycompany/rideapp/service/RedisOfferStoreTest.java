@@ -0,0 +1,137 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.service.OfferStore.Offer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import redis.embedded.RedisServer;
+
+/**
+ * Two stores on one redis-server stand in for two nodes sharing their offers.
+ */
+class RedisOfferStoreTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final RedisOfferStore store = new RedisOfferStore(redisTemplate);
+    private final RedisOfferStore otherNode = new RedisOfferStore(redisTemplate);
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = RedisServer.newRedisServer().port(port).setting("bind 127.0.0.1").build();
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @Test
+    void claimsHoldAcrossNodesAndLapseOnTheirTtl() throws InterruptedException {
+        assertTrue(store.tryClaim("d1", "r1", 10_000));
+        assertFalse(otherNode.tryClaim("d1", "r2", 10_000));
+        assertEquals("r1", otherNode.claimOf("d1"));
+
+        // Only the holder's ride releases the claim
+        otherNode.releaseClaim("d1", "r2");
+        assertEquals("r1", store.claimOf("d1"));
+        otherNode.releaseClaim("d1", "r1");
+        assertNull(store.claimOf("d1"));
+
+        assertTrue(store.tryClaim("d2", "r1", 50));
+        Thread.sleep(100);
+        assertTrue(otherNode.tryClaim("d2", "r2", 10_000));
+    }
+
+    @Test
+    void offersAreOnlyRemovedByTheirOwnCheck() {
+        store.putOffer("r1", "d1", new Offer("o1", 1000, false), 10_000);
+        store.putOffer("r1", "d1", new Offer("o2", 2000, false), 10_000);
+
+        assertFalse(otherNode.removeOffer("r1", "d1", "o1"));
+        assertEquals(new Offer("o2", 2000, false), otherNode.getOffer("r1", "d1"));
+
+        assertEquals(new Offer("o2", 2000, false), otherNode.markDelivered("r1", "d1"));
+        assertTrue(store.getOffer("r1", "d1").delivered());
+        assertNull(otherNode.markDelivered("r1", "d2"));
+
+        assertTrue(store.removeOffer("r1", "d1", "o2"));
+        assertNull(otherNode.getOffer("r1", "d1"));
+    }
+
+    @Test
+    void offersPastTheirTtlAreGoneWhileTheRideHasLaterOnes() throws InterruptedException {
+        store.putOffer("r1", "d1", new Offer("o1", 1000, false), 50);
+        store.putOffer("r1", "d2", new Offer("o2", 1000, false), 10_000);
+        Thread.sleep(100);
+
+        assertNull(store.getOffer("r1", "d1"));
+        assertTrue(store.getOffer("r1", "d2") != null);
+
+        store.removeOffers("r1");
+        assertNull(store.getOffer("r1", "d2"));
+    }
+
+    @Test
+    void ackOnAnotherNodeStopsTheDeliveryDeadline() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getOffer().setAckRequired(true);
+        properties.getOffer().setDeliveryTimeoutMs(500);
+        properties.getOffer().setDecisionTimeoutMs(1200);
+        properties.getOffer().setTickMs(100);
+        List<String> expired = new ArrayList<>();
+        OfferTimeouts owner = new OfferTimeouts(store, properties, new SimpleMeterRegistry());
+        owner.setHandler((rideRequestId, driverId, reason) -> expired.add(driverId + ":" + reason));
+        OfferTimeouts receiver = new OfferTimeouts(otherNode, properties, new SimpleMeterRegistry());
+
+        owner.track("r1", "d1");
+        owner.track("r1", "d2");
+        assertTrue(receiver.acknowledge("r1", "d1"));
+        receiver.resolve("r1", "d2");
+
+        owner.tick(System.currentTimeMillis() + 600);
+        assertTrue(expired.isEmpty());
+        assertTrue(receiver.isPending("r1", "d1"));
+
+        owner.tick(System.currentTimeMillis() + 1500);
+        assertEquals(List.of("d1:DECISION"), expired);
+        assertFalse(receiver.isPending("r1", "d1"));
+    }
+}
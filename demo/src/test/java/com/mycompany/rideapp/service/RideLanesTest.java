@@ -0,0 +1,153 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.PendingRide;
+import com.mycompany.rideapp.dto.RideNotification;
+import com.mycompany.rideapp.dto.request.DriverResponseRequest;
+import com.mycompany.rideapp.dto.request.RideRequest;
+import com.mycompany.rideapp.mapper.RideMapper;
+import com.mycompany.rideapp.repository.DriverRepository;
+import com.mycompany.rideapp.repository.RideRepository;
+import com.mycompany.rideapp.repository.UserRepository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RideLanesTest {
+    private static final int RIDES = 10_000;
+    private static final int REJECTIONS_PER_RIDE = 3;
+
+    private final Map<String, AtomicInteger> offers = new ConcurrentHashMap<>();
+    private final InMemoryPendingRideStore pendingRideStore = new InMemoryPendingRideStore();
+    private RideLanes rideLanes;
+    private RideService rideService;
+
+    @BeforeEach
+    void setUp() {
+        DispatchProperties properties = new DispatchProperties();
+        // Several lanes even on a single core machine
+        properties.getScheduler().setLanes(4);
+        properties.getPresence().setRequireSubscription(false);
+        rideLanes = new RideLanes(properties, new SimpleMeterRegistry());
+
+        // Plain objects instead of spies, the stress test makes too many calls to record
+        NotificationService notificationService = new NotificationService(null, null, null, null) {
+            @Override
+            public void sendRideRequestToDrivers(Collection<String> driverIds, RideNotification notification) {
+                driverIds.forEach(driverId -> offers.computeIfAbsent(driverId, id -> new AtomicInteger())
+                        .incrementAndGet());
+            }
+        };
+        ActiveRideRegistry activeRideRegistry = new ActiveRideRegistry(null, null, null, null);
+        InMemoryOfferStore offerStore = new InMemoryOfferStore();
+        rideService = new RideService(mock(RideRepository.class), mock(RideMapper.class), mock(DriverService.class),
+                notificationService, mock(UserRepository.class), mock(DriverRepository.class), null,
+                mock(DispatchScheduler.class), mock(BatchMatcher.class), properties, new SimpleMeterRegistry(),
+                mock(CustomerInfoCache.class), activeRideRegistry,
+                new DriverAvailabilityRegistry(activeRideRegistry, offerStore, properties), rideLanes,
+                new OfferTimeouts(offerStore, properties, new SimpleMeterRegistry()),
+                new DriverSessionRegistry(mock(DriverPresenceTracker.class), properties, new SimpleMeterRegistry()),
+                new TransactionTemplate(new NoOpTransactionManager()), null, pendingRideStore);
+
+        // One log line per offer would dominate the run time
+        rideServiceLogger().setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rideServiceLogger().setLevel(null);
+        rideLanes.stop();
+    }
+
+    @Test
+    void callRethrowsAndRunsInlineOnItsOwnLane() {
+        assertThrows(IllegalStateException.class, () -> rideLanes.run("r1", () -> {
+            throw new IllegalStateException("boom");
+        }));
+        // A nested call for the same ride must not wait on its own lane
+        assertEquals(42, rideLanes.call("r1", () -> rideLanes.call("r1", () -> 42)));
+    }
+
+    @Test
+    void concurrentRejectionsNeverLoseOrDuplicateOffers() throws Exception {
+        for (int ride = 0; ride < RIDES; ride++) {
+            List<String> driverIds = new ArrayList<>();
+            for (int driver = 0; driver <= REJECTIONS_PER_RIDE; driver++) {
+                driverIds.add("r" + ride + "-d" + driver);
+            }
+            pendingRideStore.create(PendingRide.builder()
+                    .rideRequestId("r" + ride)
+                    .request(new RideRequest())
+                    .customerName("An")
+                    .driverIds(driverIds)
+                    .build());
+        }
+
+        // Every ride gets all its rejections at once, from different threads
+        ExecutorService senders = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(RIDES * REJECTIONS_PER_RIDE);
+        for (int round = 0; round < REJECTIONS_PER_RIDE; round++) {
+            for (int ride = 0; ride < RIDES; ride++) {
+                DriverResponseRequest response = new DriverResponseRequest();
+                response.setRideRequestId("r" + ride);
+                response.setDriverId("r" + ride + "-d" + round);
+                response.setAccepted(false);
+                senders.execute(() -> {
+                    try {
+                        start.await();
+                        rideService.handleDriverResponse(response);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        senders.shutdown();
+        // Responses are only queued on the lanes; wait until each ride's lane has applied them
+        for (int ride = 0; ride < RIDES; ride++) {
+            rideLanes.run("r" + ride, () -> {
+            });
+        }
+
+        // Every rejection moved its ride on by exactly one offer
+        assertEquals(RIDES * REJECTIONS_PER_RIDE, offers.size());
+        offers.forEach((driverId, count) -> assertEquals(1, count.get(), driverId));
+        for (int ride = 0; ride < RIDES; ride++) {
+            PendingRide pendingRide = pendingRideStore.get("r" + ride);
+            assertEquals(REJECTIONS_PER_RIDE, pendingRide.getCurrentDriverIndex());
+            assertEquals(REJECTIONS_PER_RIDE, pendingRide.getRejectedDriverIds().size());
+        }
+    }
+
+    private static Logger rideServiceLogger() {
+        return (Logger) LoggerFactory.getLogger(RideService.class);
+    }
+}
@@ -5,7 +5,10 @@ import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,16 +22,22 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.DriverSearchQuery;
+import com.mycompany.rideapp.dto.NearbyDriver;
 import com.mycompany.rideapp.dto.PendingRide;
 import com.mycompany.rideapp.dto.request.DriverResponseRequest;
 import com.mycompany.rideapp.dto.request.RideRequest;
@@ -36,11 +45,17 @@ import com.mycompany.rideapp.dto.response.DriverResponse;
 import com.mycompany.rideapp.entity.Driver;
 import com.mycompany.rideapp.entity.Ride;
 import com.mycompany.rideapp.entity.User;
+import com.mycompany.rideapp.enums.DispatchMode;
+import com.mycompany.rideapp.enums.RideRequestCancelReason;
 import com.mycompany.rideapp.enums.VehicleType;
+import com.mycompany.rideapp.mapper.RideMapper;
 import com.mycompany.rideapp.repository.DriverRepository;
 import com.mycompany.rideapp.repository.RideRepository;
 import com.mycompany.rideapp.repository.UserRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 public class RideServiceRetryTest {
 
@@ -54,6 +69,37 @@ public class RideServiceRetryTest {
     private UserRepository userRepository;
     @Mock
     private DriverRepository driverRepository;
+    @Mock
+    private DispatchScheduler dispatchScheduler;
+    @Mock
+    private BatchMatcher batchMatcher;
+    @Mock
+    private CustomerInfoCache customerInfoCache;
+    @Mock
+    private ActiveRideRegistry activeRideRegistry;
+    @Mock
+    private RideMapper rideMapper;
+    private InMemoryOfferStore offerStore = new InMemoryOfferStore();
+    @Spy
+    private OfferTimeouts offerTimeouts = new OfferTimeouts(offerStore, new DispatchProperties(),
+            new SimpleMeterRegistry());
+    @Spy
+    private DispatchProperties dispatchProperties = new DispatchProperties();
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Spy
+    private InMemoryPendingRideStore pendingRideStore = new InMemoryPendingRideStore();
+    @Spy
+    private DriverAvailabilityRegistry driverAvailabilityRegistry = new DriverAvailabilityRegistry(
+            mock(ActiveRideRegistry.class), offerStore, new DispatchProperties());
+    @Spy
+    private DriverSessionRegistry driverSessionRegistry = new DriverSessionRegistry(mock(DriverPresenceTracker.class),
+            withoutSubscriptionCheck(), new SimpleMeterRegistry());
+    @Spy
+    private RideLanes rideLanes = new RideLanes(new DispatchProperties(), new SimpleMeterRegistry());
+    private NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
 
     // We cannot easily mock the internal scheduler initialized in field declaration
     // without setters or reflection or refactoring.
@@ -72,6 +118,12 @@ public class RideServiceRetryTest {
     @InjectMocks
     private RideService rideService;
 
+    private static DispatchProperties withoutSubscriptionCheck() {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getPresence().setRequireSubscription(false);
+        return properties;
+    }
+
     @BeforeEach
     void setUp() {
         // We can replace the scheduler with a mock if we want to verify scheduling
@@ -97,10 +149,10 @@ public class RideServiceRetryTest {
         Map<String, Object> result = rideService.createRide(request);
 
         assertNotNull(result.get("rideRequestId"));
-        assertEquals("PENDING", result.get("status"));
+        assertEquals("SEARCHING", result.get("status"));
 
         // Verify notification sent to first driver
-        verify(notificationService).sendRideRequestToDriver(eq("d1"), any());
+        verify(notificationService).sendRideRequestToDrivers(eq(List.of("d1")), any());
     }
 
     @Test
@@ -118,10 +170,8 @@ public class RideServiceRetryTest {
                 .currentDriverIndex(0)
                 .build();
 
-        // Inject into map
-        Map<String, PendingRide> pendingRides = (Map<String, PendingRide>) ReflectionTestUtils.getField(rideService,
-                "pendingRides");
-        pendingRides.put(rideRequestId, pendingRide);
+        // Inject into store
+        pendingRideStore.create(pendingRide);
 
         // Mock dependencies
         when(driverRepository.findById("d1")).thenReturn(Optional.of(new Driver()));
@@ -138,14 +188,55 @@ public class RideServiceRetryTest {
         response.setDriverId("d1");
         response.setAccepted(true);
 
+        AtomicInteger commitsBeforeNotify = new AtomicInteger(-1);
+        doAnswer(invocation -> {
+            commitsBeforeNotify.set(transactionManager.commits.get());
+            return null;
+        }).when(notificationService).notifyRideAccepted(eq("cust1"), any(), eq("ride1"));
+
         rideService.handleDriverResponse(response);
+        rideLanes.run(rideRequestId, () -> {
+        });
 
-        // Verify ride created
+        // Verify ride created, and the customer told only once it is committed
         verify(rideRepository).save(any(Ride.class));
-        verify(notificationService).notifyRideAccepted(eq("cust1"), any(), eq("ride1"));
+        assertEquals(1, commitsBeforeNotify.get());
 
         // Verify retry stopped (implicitly by ride being removed from pending map)
-        assertEquals(0, pendingRides.size());
+        assertEquals(0, pendingRideStore.size());
+    }
+
+    @Test
+    void failedAcceptanceRollsBackAndKeepsTheRidePending() {
+        String rideRequestId = "req1";
+        RideRequest request = new RideRequest();
+        request.setCustomerId("cust1");
+        PendingRide pendingRide = PendingRide.builder()
+                .rideRequestId(rideRequestId)
+                .request(request)
+                .driverIds(Arrays.asList("d1", "d2"))
+                .currentDriverIndex(0)
+                .build();
+        pendingRideStore.create(pendingRide);
+
+        when(driverRepository.findById("d1")).thenReturn(Optional.of(new Driver()));
+        when(userRepository.findById("cust1")).thenReturn(Optional.of(new User()));
+        when(rideRepository.save(any(Ride.class))).thenThrow(new IllegalStateException("deadlock victim"));
+
+        DriverResponseRequest response = new DriverResponseRequest();
+        response.setRideRequestId(rideRequestId);
+        response.setDriverId("d1");
+        response.setAccepted(true);
+        rideService.handleDriverResponse(response);
+        rideLanes.run(rideRequestId, () -> {
+        });
+
+        assertEquals(1, transactionManager.rollbacks.get());
+        verify(notificationService, never()).notifyRideAccepted(any(), any(), any());
+        verify(activeRideRegistry, never()).update(any());
+        // Still open for the next accept
+        assertEquals(false, pendingRide.getAccepted().get());
+        assertEquals(true, pendingRideStore.tryAccept(rideRequestId));
     }
 
     @Test
@@ -163,10 +254,8 @@ public class RideServiceRetryTest {
                 .currentDriverIndex(0)
                 .build();
 
-        // Inject into map
-        Map<String, PendingRide> pendingRides = (Map<String, PendingRide>) ReflectionTestUtils.getField(rideService,
-                "pendingRides");
-        pendingRides.put(rideRequestId, pendingRide);
+        // Inject into store
+        pendingRideStore.create(pendingRide);
 
         // Trigger rejection
         DriverResponseRequest response = new DriverResponseRequest();
@@ -175,9 +264,161 @@ public class RideServiceRetryTest {
         response.setAccepted(false);
 
         rideService.handleDriverResponse(response);
+        rideLanes.run(rideRequestId, () -> {
+        });
 
         // Verify moved to next driver
         assertEquals(1, pendingRide.getCurrentDriverIndex());
-        verify(notificationService).sendRideRequestToDriver(eq("d2"), any());
+        verify(notificationService).sendRideRequestToDrivers(eq(List.of("d2")), any());
+    }
+
+    @Test
+    void testBroadcastFirstAcceptWins() {
+        dispatchProperties.setMode(DispatchMode.BROADCAST);
+        dispatchProperties.getBroadcast().setFanOut(2);
+
+        RideRequest request = new RideRequest();
+        request.setCustomerId("cust1");
+        request.setCustomerLatitude(10.0);
+        request.setCustomerLongitude(20.0);
+        request.setVehicleType(VehicleType.CAR);
+
+        DriverResponse d1 = new DriverResponse();
+        d1.setId("d1");
+        DriverResponse d2 = new DriverResponse();
+        d2.setId("d2");
+        DriverResponse d3 = new DriverResponse();
+        d3.setId("d3");
+
+        when(driverService.getNearestDrivers(anyDouble(), anyDouble(), anyInt(), any(VehicleType.class)))
+                .thenReturn(Arrays.asList(d1, d2, d3));
+
+        String rideRequestId = (String) rideService.createRide(request).get("rideRequestId");
+
+        // Offered to the top two at once
+        verify(notificationService).sendRideRequestToDrivers(eq(List.of("d1", "d2")), any());
+
+        when(driverRepository.findById("d2")).thenReturn(Optional.of(new Driver()));
+        when(userRepository.findById("cust1")).thenReturn(Optional.of(new User()));
+        when(rideRepository.save(any(Ride.class))).thenAnswer(i -> {
+            Ride r = i.getArgument(0);
+            r.setId("ride1");
+            return r;
+        });
+
+        DriverResponseRequest winner = new DriverResponseRequest();
+        winner.setRideRequestId(rideRequestId);
+        winner.setDriverId("d2");
+        winner.setAccepted(true);
+        rideService.handleDriverResponse(winner);
+        rideLanes.run(rideRequestId, () -> {
+        });
+
+        // The other offered driver is told right away
+        verify(notificationService).notifyDriversRideRequestCancelled(List.of("d1"), rideRequestId,
+                RideRequestCancelReason.TAKEN);
+        assertEquals(1, meterRegistry.get("ride.match.time").timer().count());
+
+        DriverResponseRequest late = new DriverResponseRequest();
+        late.setRideRequestId(rideRequestId);
+        late.setDriverId("d1");
+        late.setAccepted(true);
+        rideService.handleDriverResponse(late);
+        rideLanes.run(rideRequestId, () -> {
+        });
+
+        verify(rideRepository, times(1)).save(any(Ride.class));
+        verify(notificationService).notifyDriverRideRequestCancelled("d1", rideRequestId,
+                RideRequestCancelReason.CLOSED);
+    }
+
+    @Test
+    void retryTickLeavesSilentOfferToItsDecisionDeadline() {
+        RideRequest request = new RideRequest();
+        request.setCustomerId("cust1");
+        request.setCustomerLatitude(10.0);
+        request.setCustomerLongitude(20.0);
+        request.setVehicleType(VehicleType.CAR);
+
+        DriverResponse d1 = new DriverResponse();
+        d1.setId("d1");
+        DriverResponse d2 = new DriverResponse();
+        d2.setId("d2");
+        when(driverService.getNearestDrivers(anyDouble(), anyDouble(), anyInt(), any(VehicleType.class)))
+                .thenReturn(Arrays.asList(d1, d2));
+
+        rideService.init();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<String>>> retryTick = ArgumentCaptor.forClass(Consumer.class);
+        verify(dispatchScheduler).setHandler(retryTick.capture());
+
+        String rideRequestId = (String) rideService.createRide(request).get("rideRequestId");
+        verify(notificationService).sendRideRequestToDrivers(eq(List.of("d1")), any());
+
+        // d1 is still the nearest driver when the retry tick comes before the decision deadline
+        when(dispatchScheduler.claim(rideRequestId)).thenReturn(true);
+        when(dispatchScheduler.getMaxRetries()).thenReturn(5);
+        when(driverService.getNearestDrivers(any(Map.class))).thenReturn(Map.of(rideRequestId, List.of(d1, d2)));
+        retryTick.getValue().accept(List.of(rideRequestId));
+        rideLanes.run(rideRequestId, () -> {
+        });
+
+        verify(notificationService, times(1)).sendRideRequestToDrivers(eq(List.of("d1")), any());
+        assertEquals(true, offerTimeouts.isPending(rideRequestId, "d1"));
+
+        // The untouched deadline expires and the ride moves on to d2
+        offerTimeouts.tick(System.currentTimeMillis()
+                + dispatchProperties.getOffer().getDecisionTimeoutMs() + 1000);
+
+        verify(notificationService, timeout(2000)).sendRideRequestToDrivers(eq(List.of("d2")), any());
+        rideLanes.run(rideRequestId, () -> {
+        });
+        assertEquals(true, pendingRideStore.get(rideRequestId).getRejectedDriverIds().contains("d1"));
+    }
+
+    @Test
+    void batchRidesLeftWithoutADriverGoBackIntoTheNextWindow() {
+        dispatchProperties.setMode(DispatchMode.BATCH);
+        rideService.init();
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<List<String>>> window = ArgumentCaptor.forClass(Consumer.class);
+        verify(batchMatcher).setHandler(window.capture());
+        when(batchMatcher.assign(any())).thenCallRealMethod();
+
+        String matched = batchedRide(10.0);
+        String outbid = batchedRide(10.001);
+        String lost = batchedRide(11.0);
+        String stranded = batchedRide(12.0);
+        // matched and outbid compete for d1, lost gets d2 who disconnects before the offer
+        when(driverService.findCandidateDrivers(any(DriverSearchQuery.class))).thenAnswer(invocation -> {
+            double lat = invocation.<DriverSearchQuery>getArgument(0).getLatitude();
+            if (lat < 10.5) {
+                return List.of(new NearbyDriver("d1", 10.0, 20.0, lat == 10.0 ? 50 : 150));
+            }
+            return lat < 11.5 ? List.of(new NearbyDriver("d2", 11.0, 20.0, 50)) : List.of();
+        });
+        doAnswer(invocation -> !"d2".equals(invocation.getArgument(0))).when(driverSessionRegistry)
+                .isReachable(anyString());
+
+        window.getValue().accept(List.of(matched, outbid, lost, stranded));
+        for (String rideRequestId : List.of(matched, outbid, lost, stranded)) {
+            rideLanes.run(rideRequestId, () -> {
+            });
+        }
+
+        verify(notificationService).sendRideRequestToDrivers(eq(List.of("d1")), any());
+        verify(batchMatcher, times(1)).enqueue(matched);
+        verify(batchMatcher, times(2)).enqueue(outbid);
+        verify(batchMatcher, times(2)).enqueue(lost);
+        verify(batchMatcher, times(2)).enqueue(stranded);
+    }
+
+    private String batchedRide(double lat) {
+        RideRequest request = new RideRequest();
+        request.setCustomerId("cust1");
+        request.setCustomerLatitude(lat);
+        request.setCustomerLongitude(20.0);
+        request.setVehicleType(VehicleType.CAR);
+        return (String) rideService.createRide(request).get("rideRequestId");
     }
 }
@@ -0,0 +1,40 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.mycompany.rideapp.enums.Status;
+
+class RideStateMachineTest {
+
+    @Test
+    void followsTheTripForward() {
+        assertTrue(RideStateMachine.canTransition(Status.CONFIRMED, Status.PICKINGUP));
+        assertTrue(RideStateMachine.canTransition(Status.PICKINGUP, Status.ONGOING));
+        assertTrue(RideStateMachine.canTransition(Status.ONGOING, Status.FINISHED));
+
+        assertFalse(RideStateMachine.canTransition(Status.ONGOING, Status.PICKINGUP));
+        assertFalse(RideStateMachine.canTransition(Status.CONFIRMED, Status.FINISHED));
+    }
+
+    @Test
+    void terminalStatusesAreFinal() {
+        for (Status target : Status.values()) {
+            assertFalse(RideStateMachine.canTransition(Status.FINISHED, target));
+            assertFalse(RideStateMachine.canTransition(Status.CANCELLED, target));
+        }
+    }
+
+    @Test
+    void sourcesAreTheInverseOfTheTable() {
+        assertEquals(EnumSet.of(Status.PENDING, Status.CONFIRMED, Status.PICKINGUP, Status.ONGOING),
+                RideStateMachine.sourcesOf(Status.CANCELLED));
+        assertEquals(EnumSet.of(Status.ONGOING), RideStateMachine.sourcesOf(Status.FINISHED));
+        assertTrue(RideStateMachine.sourcesOf(Status.PENDING).isEmpty());
+    }
+}
@@ -0,0 +1,137 @@
+package com.mycompany.rideapp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.mycompany.rideapp.config.DispatchProperties;
+import com.mycompany.rideapp.dto.event.DriverMapDelta;
+import com.mycompany.rideapp.dto.request.ViewportRequest;
+import com.mycompany.rideapp.enums.MapChange;
+import com.mycompany.rideapp.enums.VehicleType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ViewportRegistryTest {
+    private final DispatchProperties properties = new DispatchProperties();
+    private final DriverLocationIndex locationIndex = new DriverLocationIndex(properties);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ViewportRegistry registry = new ViewportRegistry(locationIndex, notificationService, properties,
+            new SimpleMeterRegistry());
+
+    @Test
+    void registeringSendsTheDriversAlreadyInView() {
+        locationIndex.upsert("inside", 10.77, 106.70, EnumSet.of(VehicleType.CAR));
+        locationIndex.upsert("outside", 10.90, 106.70, EnumSet.of(VehicleType.CAR));
+
+        assertTrue(registry.register("s1", viewport("v1", 10.75, 10.80, 106.65, 106.75)));
+
+        assertEquals(List.of("ENTER inside"), describe(deltas(1).get(0)));
+    }
+
+    @Test
+    void movesBecomeEnterMoveAndLeave() {
+        registry.register("s1", viewport("v1", 10.75, 10.80, 106.65, 106.75));
+        Mockito.clearInvocations(notificationService);
+
+        registry.onDriverMoved("d1", 10.70, 106.70);
+        registry.onDriverMoved("d1", 10.76, 106.70);
+        registry.onDriverMoved("d1", 10.77, 106.71);
+        registry.onDriverMoved("d1", 10.85, 106.71);
+        registry.onDriverMoved("d1", 10.86, 106.71);
+
+        List<String> changes = new ArrayList<>();
+        deltas(3).forEach(delta -> changes.addAll(describe(delta)));
+        assertEquals(List.of("ENTER d1", "MOVE d1", "LEAVE d1"), changes);
+    }
+
+    @Test
+    void panningOnlySendsTheDifference() {
+        locationIndex.upsert("west", 10.77, 106.66, EnumSet.of(VehicleType.CAR));
+        locationIndex.upsert("middle", 10.77, 106.70, EnumSet.of(VehicleType.CAR));
+        locationIndex.upsert("east", 10.77, 106.74, EnumSet.of(VehicleType.CAR));
+        registry.register("s1", viewport("v1", 10.75, 10.80, 106.65, 106.71));
+
+        registry.register("s1", viewport("v1", 10.75, 10.80, 106.69, 106.75));
+
+        List<DriverMapDelta> deltas = deltas(2);
+        assertEquals(List.of("ENTER east", "LEAVE west"), describe(deltas.get(1)));
+
+        // The old box no longer gets updates
+        Mockito.clearInvocations(notificationService);
+        registry.onDriverMoved("west", 10.771, 106.661);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void offlineDriversLeaveAndClosedViewportsGoQuiet() {
+        registry.register("s1", viewport("v1", 10.75, 10.80, 106.65, 106.75));
+        registry.onDriverMoved("d1", 10.77, 106.70);
+        Mockito.clearInvocations(notificationService);
+
+        registry.onDriverRemoved("d1");
+        assertEquals(List.of("LEAVE d1"), describe(deltas(1).get(0)));
+
+        registry.onDisconnect(new SessionDisconnectEvent(this, MessageBuilder.createMessage(new byte[0],
+                StompHeaderAccessor.create(StompCommand.DISCONNECT).getMessageHeaders()), "s1", CloseStatus.NORMAL));
+        Mockito.clearInvocations(notificationService);
+        registry.onDriverMoved("d1", 10.77, 106.70);
+
+        verifyNoInteractions(notificationService);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void zoomedOutViewportsAreNotStreamed() {
+        ViewportRequest request = viewport("v1", 10.75, 10.80, 106.65, 106.75);
+        request.setZoom(8.0);
+
+        assertFalse(registry.register("s1", request));
+        assertFalse(registry.register("s1", viewport("v2", 0, 20, 100, 120)));
+        assertEquals(0, registry.size());
+    }
+
+    private static ViewportRequest viewport(String id, double minLat, double maxLat, double minLng, double maxLng) {
+        return ViewportRequest.builder()
+                .viewportId(id)
+                .minLat(minLat)
+                .maxLat(maxLat)
+                .minLng(minLng)
+                .maxLng(maxLng)
+                .zoom(14.0)
+                .build();
+    }
+
+    private List<DriverMapDelta> deltas(int count) {
+        ArgumentCaptor<DriverMapDelta> captor = ArgumentCaptor.forClass(DriverMapDelta.class);
+        verify(notificationService, Mockito.times(count)).notifyViewport(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static List<String> describe(DriverMapDelta delta) {
+        List<String> changes = new ArrayList<>();
+        for (DriverMapDelta.Change change : delta.changes()) {
+            changes.add(change.change() + " " + change.driverId());
+            if (change.change() == MapChange.LEAVE) {
+                assertEquals(null, change.lat());
+            }
+        }
+        return changes;
+    }
+}
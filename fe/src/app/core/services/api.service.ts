@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, reduce } from 'rxjs/operators';
 import { environment } from '../../../environments/environment';
 @Injectable({
   providedIn: 'root',
@@ -31,6 +32,23 @@ export class ApiService {
     return this.http.get<T>(`${this.apiUrl}${endpoint}`, options);
   }
 
+  // List endpoints return one page at a time; follows X-Next-Cursor until the last page
+  protected getAllPages<T>(endpoint: string, params?: any): Observable<T[]> {
+    const page = (cursor?: string) =>
+      this.http.get<T[]>(`${this.apiUrl}${endpoint}`, {
+        headers: this.getHeaders(),
+        params: new HttpParams({ fromObject: cursor ? { ...params, cursor } : { ...params } }),
+        observe: 'response',
+      });
+    return page().pipe(
+      expand((response) => {
+        const next = response.headers.get('X-Next-Cursor');
+        return next ? page(next) : EMPTY;
+      }),
+      reduce((items, response) => items.concat(response.body ?? []), [] as T[])
+    );
+  }
+
   protected post<T>(endpoint: string, body: any, skipAuth: boolean = false): Observable<T> {
     return this.http.post<T>(`${this.apiUrl}${endpoint}`, body, {
       headers: this.getHeaders(skipAuth),
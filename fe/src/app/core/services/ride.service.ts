@@ -22,7 +22,7 @@ export class RideService extends ApiService {
   }
 
   getAllRides(): Observable<RideResponse[]> {
-    return this.get<RideResponse[]>('/rides');
+    return this.getAllPages<RideResponse>('/rides');
   }
 
   updateRide(id: string, request: RideRequest): Observable<RideResponse> {
@@ -30,15 +30,15 @@ export class RideService extends ApiService {
   }
 
   getRidesByDriver(driverId: string): Observable<RideResponse[]> {
-    return this.get<RideResponse[]>(`/rides/driver/${driverId}`);
+    return this.getAllPages<RideResponse>(`/rides/driver/${driverId}`);
   }
 
   getRidesByCustomer(customerId: string): Observable<RideResponse[]> {
-    return this.get<RideResponse[]>(`/rides/customer/${customerId}`);
+    return this.getAllPages<RideResponse>(`/rides/customer/${customerId}`);
   }
 
   getRidesByUser(userId: string): Observable<RideResponse[]> {
-    return this.get<RideResponse[]>(`/rides/user/${userId}`);
+    return this.getAllPages<RideResponse>(`/rides/user/${userId}`);
   }
 
   updateRideStatus(rideId: string, status: string): Observable<RideResponse> {
@@ -64,6 +64,10 @@ export class DriverRideRequestService {
 
                     try {
                         const parsed = JSON.parse(message.body);
+                        // Ride offers carry no type; acknowledge them so the backend knows they arrived
+                        if (!parsed.type && parsed.rideRequestId) {
+                            this.sendOfferAck(parsed.rideRequestId, driverId);
+                        }
                         return parsed;
                     } catch (error) {
                         throw error;
@@ -72,6 +76,16 @@ export class DriverRideRequestService {
             );
     }
 
+    sendOfferAck(rideRequestId: string, driverId: string): void {
+        this.stompClient.publish({
+            destination: '/app/driver/offer-ack',
+            body: JSON.stringify({
+                rideRequestId,
+                driverId
+            })
+        });
+    }
+
     sendDriverResponse(rideRequestId: string, driverId: string, accepted: boolean): void {
         this.stompClient.publish({
             destination: '/app/driver/response',
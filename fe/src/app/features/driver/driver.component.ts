@@ -201,7 +201,7 @@ export class DriverComponent implements OnInit, OnDestroy {
               this.onRideCancelled();
             }
           } else if (notification.type === 'RIDE_REQUEST_CANCELLED') {
-            alert('Chuyến đi này đã bị khách hàng hủy trước khi bạn chấp nhận.');
+            alert(this.rideRequestCancelledMessage(notification.reason));
             if (this.showRideRequestModal) {
               this.showRideRequestModal = false;
               this.currentRideRequest = null;
@@ -226,6 +226,21 @@ export class DriverComponent implements OnInit, OnDestroy {
     this.rideRequestSubscription = undefined; // ← Fix: Set to undefined to allow re-subscription
   }
 
+  private rideRequestCancelledMessage(reason?: string): string {
+    switch (reason) {
+      case 'EXPIRED':
+        return 'Yêu cầu chuyến đi đã hết hạn trước khi bạn trả lời.';
+      case 'TAKEN':
+        return 'Chuyến đi này đã được tài xế khác nhận.';
+      case 'UNAVAILABLE':
+        return 'Bạn đang có chuyến đi nên không thể nhận thêm chuyến này.';
+      case 'CLOSED':
+        return 'Yêu cầu chuyến đi này không còn khả dụng.';
+      default:
+        return 'Chuyến đi này đã bị khách hàng hủy trước khi bạn chấp nhận.';
+    }
+  }
+
   private async showRideRequestNotification(notification: RideRequestNotification): Promise<void> {
 
     // Use startAddress and endAddress from backend if available, otherwise fallback to reverse geocode